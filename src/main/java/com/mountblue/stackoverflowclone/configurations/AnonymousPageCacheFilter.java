@@ -0,0 +1,163 @@
+package com.mountblue.stackoverflowclone.configurations;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.mountblue.stackoverflowclone.services.ContentVersionService;
+import com.mountblue.stackoverflowclone.services.QuestionService;
+import com.mountblue.stackoverflowclone.services.ViewerSketchService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Whole-page cache of /questions/{id} for logged-out readers, keyed by question id and content version.
+// Responses carry a strong ETag built from the version, so a matching If-None-Match gets a 304 after one
+// version lookup and no rendering. Signed-in users (follow state, edit and accept controls) always get a
+// fresh render. Registered as a plain servlet filter, it runs after Spring Security has set up the context.
+@Component
+public class AnonymousPageCacheFilter extends OncePerRequestFilter {
+
+    private static final Pattern QUESTION_PAGE = Pattern.compile("/questions/(\\d+)");
+
+    private final ContentVersionService contentVersionService;
+    private final QuestionService questionService;
+    private final ViewerSketchService viewerSketchService;
+    private final Cache<PageKey, CachedPage> pages;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder notModified = new LongAdder();
+
+    public AnonymousPageCacheFilter(ContentVersionService contentVersionService,
+                                    QuestionService questionService,
+                                    ViewerSketchService viewerSketchService,
+                                    @Value("${app.page-cache.max-entries:2000}") long maxEntries,
+                                    @Value("${app.page-cache.ttl-seconds:300}") long ttlSeconds) {
+        this.contentVersionService = contentVersionService;
+        this.questionService = questionService;
+        this.viewerSketchService = viewerSketchService;
+        // The TTL bounds how stale the parts without a version (view counts, related list) can get
+        this.pages = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .build();
+    }
+
+    private record PageKey(long questionId, ContentVersionService.Version version) {
+    }
+
+    private record CachedPage(byte[] body, String contentType) {
+    }
+
+    public record Stats(long size, long hits, long misses, long notModified) {
+    }
+
+    public Stats getStats() {
+        return new Stats(pages.estimatedSize(), hits.sum(), misses.sum(), notModified.sum());
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !"GET".equals(request.getMethod())
+                || request.getQueryString() != null
+                || !QUESTION_PAGE.matcher(pathOf(request)).matches();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (!isAnonymous()) {
+            chain.doFilter(request, response);
+            return;
+        }
+        Matcher matcher = QUESTION_PAGE.matcher(pathOf(request));
+        if (!matcher.matches()) {
+            chain.doFilter(request, response);
+            return;
+        }
+        long questionId;
+        try {
+            questionId = Long.parseLong(matcher.group(1));
+        } catch (NumberFormatException e) {
+            chain.doFilter(request, response);
+            return;
+        }
+        ContentVersionService.Version version = contentVersionService.versionOf(questionId);
+        if (version == null) {
+            // unknown question: let the controller produce its error page
+            chain.doFilter(request, response);
+            return;
+        }
+
+        String etag = "\"q" + questionId + "-" + version.question() + "-" + version.author() + "\"";
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+
+        if (etagMatches(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+            notModified.increment();
+            countView(questionId, request);
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        PageKey key = new PageKey(questionId, version);
+        CachedPage cached = pages.getIfPresent(key);
+        if (cached != null) {
+            hits.increment();
+            countView(questionId, request);
+            response.setContentType(cached.contentType());
+            response.setContentLength(cached.body().length);
+            response.getOutputStream().write(cached.body());
+            return;
+        }
+
+        misses.increment();
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        chain.doFilter(request, wrapper);
+        // Only keep the render if nothing was written while it ran
+        if (wrapper.getStatus() == HttpServletResponse.SC_OK
+                && version.equals(contentVersionService.versionOf(questionId))) {
+            pages.put(key, new CachedPage(wrapper.getContentAsByteArray(), wrapper.getContentType()));
+        }
+        wrapper.copyBodyToResponse();
+    }
+
+    // The controller is skipped on hits, so the view is counted here (both counters are in-memory buffers)
+    private void countView(long questionId, HttpServletRequest request) {
+        questionService.incrementViewCount(questionId);
+        viewerSketchService.questionViewed(questionId, ViewerSketchService.viewerHash(null, request));
+    }
+
+    private static boolean isAnonymous() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        return auth == null || auth instanceof AnonymousAuthenticationToken || !auth.isAuthenticated();
+    }
+
+    // If-None-Match uses weak comparison, so W/"x" matches "x"
+    private static boolean etagMatches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) return false;
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) tag = tag.substring(2);
+            if (tag.equals("*") || tag.equals(etag)) return true;
+        }
+        return false;
+    }
+
+    private static String pathOf(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+}
@@ -31,6 +31,7 @@ public class SecurityConfig {
                         .requestMatchers(HttpMethod.POST, "/answers/vote/**").authenticated()
                         .requestMatchers(HttpMethod.POST, "/users/*/avatar").authenticated()
                         .requestMatchers(HttpMethod.POST, "/users/*/avatar/delete").authenticated()
+                        .requestMatchers("/api/stats/**").authenticated()
                         .anyRequest().permitAll()
                 )
                 .httpBasic(Customizer.withDefaults());      // can be removed; keeps no login page
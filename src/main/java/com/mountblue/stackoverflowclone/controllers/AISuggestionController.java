@@ -3,6 +3,7 @@ package com.mountblue.stackoverflowclone.controllers;
 import com.mountblue.stackoverflowclone.services.AISuggestionService;
 import org.springframework.web.bind.annotation.*;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/ai")
@@ -12,10 +13,10 @@ public class AISuggestionController {
     public AISuggestionController(AISuggestionService aiSuggestionService) {
         this.aiSuggestionService = aiSuggestionService;
     }
+    // Async: the request thread is released while the model answers
     @GetMapping("/suggestion/{questionId}")
-    public Map<String, String> getSuggestion(@PathVariable Long questionId) {
-        String aiResponse = aiSuggestionService.getResponse(questionId);
-        return Map.of("aiResponse", aiResponse);
+    public CompletableFuture<Map<String, String>> getSuggestion(@PathVariable Long questionId) {
+        return aiSuggestionService.getResponse(questionId)
+                .thenApply(aiResponse -> Map.of("aiResponse", aiResponse));
     }
 }
-
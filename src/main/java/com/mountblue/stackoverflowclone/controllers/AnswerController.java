@@ -40,11 +40,10 @@ public class AnswerController {
     public String voteAnswer(@PathVariable Long id,
                              @RequestParam("choice") String choice,
                              @RequestParam("questionId") Long questionId,
-                             @RequestParam("postType") String postType,
                              @AuthenticationPrincipal UserPrincipal principal,
                              Model model){
         Answer answer = answerRepository.findById(id).get();
-        answerService.voteAnswer(answer, choice, postType, principal, id);
+        answerService.voteAnswer(answer, choice, principal, id);
         return "redirect:/questions/" + questionId;
     }
 
@@ -0,0 +1,45 @@
+package com.mountblue.stackoverflowclone.controllers;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+// Local stand-in for the Gemini generateContent endpoint, for measuring suggestion latency and throughput
+// offline. Active with the gemini-stub profile, which also points gemini.base-url here.
+@RestController
+@Profile("gemini-stub")
+@RequestMapping("/stub/gemini")
+public class GeminiStubController {
+    private final long latencyMs;
+    private final LongAdder calls = new LongAdder();
+
+    public GeminiStubController(@Value("${gemini.stub.latency-ms:1500}") long latencyMs) {
+        this.latencyMs = latencyMs;
+    }
+
+    @PostMapping("/v1beta/models/{modelId}:generateContent")
+    public Map<String, Object> generateContent(@PathVariable String modelId,
+                                               @RequestBody Map<String, Object> request) throws InterruptedException {
+        calls.increment();
+        Thread.sleep(latencyMs);
+        String text = """
+                **Summary:** canned suggestion from the local Gemini stub (%s, call #%d).
+
+                ```java
+                System.out.println("stub");
+                ```
+                """.formatted(modelId, calls.sum());
+        return Map.of("candidates", List.of(
+                Map.of("content", Map.of("parts", List.of(Map.of("text", text))))));
+    }
+
+    // Number of remote calls the suggestion service actually made
+    @GetMapping("/calls")
+    public Map<String, Long> getCalls() {
+        return Map.of("calls", calls.sum());
+    }
+}
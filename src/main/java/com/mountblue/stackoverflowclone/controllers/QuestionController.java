@@ -5,27 +5,45 @@ import com.mountblue.stackoverflowclone.dtos.QuestionFormDto;
 import com.mountblue.stackoverflowclone.dtos.QuestionResponseDto;
 import com.mountblue.stackoverflowclone.dtos.TagResponseDto;
 import com.mountblue.stackoverflowclone.models.*;
-import com.mountblue.stackoverflowclone.services.AnswerService;
+import com.mountblue.stackoverflowclone.services.QuestionExportService;
 import com.mountblue.stackoverflowclone.services.QuestionService;
 import com.mountblue.stackoverflowclone.services.FollowService;
+import com.mountblue.stackoverflowclone.services.ListingWatermarkService;
+import com.mountblue.stackoverflowclone.services.MarkdownRenderService;
+import com.mountblue.stackoverflowclone.services.QuestionPageLoader;
 import com.mountblue.stackoverflowclone.services.UserService;
+import com.mountblue.stackoverflowclone.services.ViewCountBuffer;
+import com.mountblue.stackoverflowclone.services.ViewerSketchService;
+import com.mountblue.stackoverflowclone.services.ViewerStateService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
-
-import com.vladsch.flexmark.html.HtmlRenderer;
-import com.vladsch.flexmark.parser.Parser;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.RequestContextUtils;
+import org.springframework.web.util.UriComponentsBuilder;
 
 import java.security.Principal;
 import java.util.Collections;
-import java.util.Comparator;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 @Controller
@@ -33,16 +51,41 @@ import java.util.stream.Collectors;
 public class QuestionController {
 
     private final QuestionService questionService;
-    private final AnswerService answerService;
     private final FollowService followService;
     private final UserService userService;
-
-    public QuestionController(QuestionService questionService, AnswerService answerService,
-                              FollowService followService, UserService userService) {
+    private final QuestionExportService questionExportService;
+    private final MarkdownRenderService markdownRenderService;
+    private final QuestionPageLoader questionPageLoader;
+    private final ViewCountBuffer viewCountBuffer;
+    private final ViewerSketchService viewerSketchService;
+    private final ListingWatermarkService listingWatermarkService;
+    private final ViewerStateService viewerStateService;
+    private final long exportTimeoutMs;
+
+    // Offset pages are only served this far; later pages are reached through keyset cursors
+    private static final int MAX_OFFSET_PAGES = 5;
+
+    public QuestionController(QuestionService questionService,
+                              FollowService followService, UserService userService,
+                              QuestionExportService questionExportService,
+                              MarkdownRenderService markdownRenderService,
+                              QuestionPageLoader questionPageLoader,
+                              ViewCountBuffer viewCountBuffer,
+                              ViewerSketchService viewerSketchService,
+                              ListingWatermarkService listingWatermarkService,
+                              ViewerStateService viewerStateService,
+                              @Value("${app.export.timeout-minutes:30}") long exportTimeoutMinutes) {
         this.questionService = questionService;
-        this.answerService = answerService;
         this.followService = followService;
         this.userService = userService;
+        this.questionExportService = questionExportService;
+        this.markdownRenderService = markdownRenderService;
+        this.questionPageLoader = questionPageLoader;
+        this.viewCountBuffer = viewCountBuffer;
+        this.viewerSketchService = viewerSketchService;
+        this.listingWatermarkService = listingWatermarkService;
+        this.viewerStateService = viewerStateService;
+        this.exportTimeoutMs = TimeUnit.MINUTES.toMillis(exportTimeoutMinutes);
     }
 
     @GetMapping
@@ -52,20 +95,152 @@ public class QuestionController {
             @RequestParam(value = "filters", required = false) List<String> filterParams,
             @RequestParam(value = "daysOld", required = false) Integer daysOld,
             @RequestParam(value = "tags", required = false) List<String> tags,
+            @RequestParam(value = "cursor", required = false) String cursor,
             @PageableDefault(size = 15) Pageable pageable,
-            Model model){
-        Parser parser = Parser.builder().build();
-        HtmlRenderer renderer = HtmlRenderer.builder().build();
+            Model model,
+            Principal principal,
+            ServletWebRequest webRequest){
+        List<String> normalizedTags = normalizeTags(tags);
+        if (notModified(webRequest, principal, query, normalizedTags, daysOld)) {
+            return null;
+        }
 
         // Unified fetch applying query, tags, filters and sort
-        List<String> normalizedTags = tags == null ? List.of() : tags.stream()
+        List<FilterType> filterTypes = toFilterTypes(filterParams);
+
+        SortType sortType = SortType.fromParam(sortParam);
+        Optional<QuestionCursor> seek = QuestionCursor.decode(cursor, sortType);
+        if (seek.isEmpty() && pageable.getPageNumber() >= MAX_OFFSET_PAGES) {
+            // A deep OFFSET reads and discards every earlier row. Old or hand-made ?page=N links go to the
+            // last offset page instead, whose "next" link continues with a cursor (except in relevance order).
+            return "redirect:" + UriComponentsBuilder.fromPath("/questions")
+                    .query(webRequest.getRequest().getQueryString())
+                    .replaceQueryParam("page", MAX_OFFSET_PAGES - 1)
+                    .build()
+                    .toUriString();
+        }
+        List<QuestionResponseDto> listed;
+        if (seek.isPresent()) {
+            // Past the offset pages: seek from the cursor, no OFFSET and no count query
+            Slice<Question> questionSlice = questionService.getFilteredQuestionsAfter(
+                    seek.get(),
+                    pageable.getPageSize(),
+                    query,
+                    normalizedTags,
+                    filterTypes,
+                    daysOld
+            );
+            listed = questionSlice.map(this::toListItem).getContent();
+            model.addAttribute("questionResponseDtoList", listed);
+            model.addAttribute("cursorMode", true);
+            model.addAttribute("nextCursor", questionService.nextCursor(questionSlice, sortType));
+            model.addAttribute("currentPage", 0);
+            model.addAttribute("totalPages", 0);
+            model.addAttribute("totalItems", 0L);
+        } else {
+            Page<Question> questionPage = questionService.getFilteredQuestions(
+                    pageable,
+                    query,
+                    normalizedTags,
+                    filterTypes,
+                    daysOld,
+                    sortParam
+            );
+
+            // Convert to DTO
+            Page<QuestionResponseDto> questionResponseDtoPage =
+                    questionPage.map(this::toListItem);
+
+            // Numbered links only for the first few pages; the last of them continues with a cursor.
+            // Relevance order has no seekable key, so its results end there.
+            int linkedPages = questionResponseDtoPage.getTotalPages();
+            String nextCursor = null;
+            if (linkedPages > MAX_OFFSET_PAGES) {
+                linkedPages = MAX_OFFSET_PAGES;
+                if (sortType != SortType.RELEVANCE && questionResponseDtoPage.getNumber() == linkedPages - 1) {
+                    nextCursor = questionService.nextCursor(questionPage, sortType);
+                }
+            }
+
+            // Add pagination attributes to model
+            listed = questionResponseDtoPage.getContent();
+            model.addAttribute("questionResponseDtoList", listed);
+            model.addAttribute("page", questionResponseDtoPage);
+            model.addAttribute("cursorMode", false);
+            model.addAttribute("nextCursor", nextCursor);
+            model.addAttribute("currentPage", questionResponseDtoPage.getNumber());
+            model.addAttribute("totalPages", linkedPages);
+            model.addAttribute("totalItems", questionResponseDtoPage.getTotalElements());
+        }
+
+        // Preserve query parameters for pagination links
+        model.addAttribute("query", query);
+        model.addAttribute("sort", sortParam);
+        model.addAttribute("filters", filterParams);
+        model.addAttribute("daysOld", daysOld);
+        model.addAttribute("tags", tags);
+
+        // Highlights the vote counts of questions the viewer has voted on
+        model.addAttribute("viewer", viewerStateService.forQuestionList(viewerId(principal),
+                listed.stream().map(QuestionResponseDto::id).toList()));
+       return "questions";
+    }
+
+    // Same parameters as the list page; rows are written while they are read, so the response starts
+    // immediately and memory stays flat however many questions match. Long downloads get their own async
+    // timeout; every other async request keeps the default.
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportQuestions(
+            @RequestParam(value = "format", required = false, defaultValue = "csv") String formatParam,
+            @RequestParam(value = "q", required = false) String query,
+            @RequestParam(value = "sort", required = false) String sortParam,
+            @RequestParam(value = "filters", required = false) List<String> filterParams,
+            @RequestParam(value = "daysOld", required = false) Integer daysOld,
+            @RequestParam(value = "tags", required = false) List<String> tags,
+            HttpServletRequest request) {
+        // Set up by the handler adapter before this method runs, and applied when the streaming body starts
+        AsyncWebRequest asyncRequest = WebAsyncUtils.getAsyncManager(request).getAsyncWebRequest();
+        if (asyncRequest != null) asyncRequest.setTimeout(exportTimeoutMs);
+
+        QuestionExportService.Format format = QuestionExportService.Format.fromParam(formatParam);
+        Specification<Question> filters = questionService.getFilterSpecification(query, normalizeTags(tags), toFilterTypes(filterParams), daysOld);
+        SortType sortType = SortType.fromParam(sortParam);
+
+        StreamingResponseBody body = out -> questionExportService.export(filters, sortType, format, out);
+        return ResponseEntity.ok()
+                .contentType(format.mediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"questions." + format.extension() + "\"")
+                .body(body);
+    }
+
+    // Conditional GET for the list and search pages, answered from the stored watermarks before the list query runs.
+    // The ETag also covers the full query string and the signed-in user, whose name is in the navbar.
+    private boolean notModified(ServletWebRequest webRequest, Principal principal,
+                                String query, List<String> tags, Integer daysOld) {
+        Map<String, ?> flash = RequestContextUtils.getInputFlashMap(webRequest.getRequest());
+        if (flash != null && !flash.isEmpty()) return false;
+        Optional<Long> watermark = listingWatermarkService.watermarkFor(query, tags, daysOld);
+        if (watermark.isEmpty()) return false;
+
+        int variant = Objects.hash(webRequest.getRequest().getRequestURI(), webRequest.getRequest().getQueryString(),
+                principal == null ? null : principal.getName());
+        String etag = "\"l" + Long.toHexString(watermark.get()) + "-" + Integer.toHexString(variant) + "\"";
+        webRequest.getResponse().setHeader(HttpHeaders.CACHE_CONTROL, "private, no-cache");
+        // The watermark is a counter, not a time, so there is no Last-Modified
+        return webRequest.checkNotModified(etag);
+    }
+
+    private static List<String> normalizeTags(List<String> tags) {
+        return tags == null ? List.of() : tags.stream()
                 .filter(Objects::nonNull)
                 .map(String::trim)
                 .filter(s -> !s.isEmpty())
                 .map(String::toLowerCase)
                 .distinct()
                 .toList();
+    }
 
+    private static List<FilterType> toFilterTypes(List<String> filterParams) {
         List<FilterType> filterTypes = new java.util.ArrayList<>();
         if (filterParams != null) {
             for (String f : filterParams) {
@@ -78,59 +253,31 @@ public class QuestionController {
                 }
             }
         }
+        return filterTypes;
+    }
 
-        Page<Question> questionPage = questionService.getFilteredQuestions(
-                pageable,
-                query,
-                normalizedTags,
-                filterTypes,
-                daysOld,
-                sortParam
-        );
-
-        // Convert to DTO
-        Page<QuestionResponseDto> questionResponseDtoPage = questionPage.map(question -> {
-            List<TagResponseDto> tagResponseDtoList = question.getTags().stream()
-                    .map(tag -> new TagResponseDto(tag.getId(), tag.getName(), Collections.emptyList()))
-                    .collect(Collectors.toList());
-
-            String markdown = question.getBody() != null ? question.getBody() : "";
-            String html = renderer.render(parser.parse(markdown));
-            String truncatedHtml = truncateHtml(html, 150);
-
-            return new QuestionResponseDto(
-                    question.getId(),
-                    question.getAuthor().getId(),
-                    question.getAuthor().getName(),
-                    question.getAuthor().getEmail(),
-                    question.getAuthor().getProfileImageUrl(),
-                    question.getAuthor().getReputation(),
-                    question.getTitle(),
-                    truncatedHtml,
-                    question.getCreatedAt(),
-                    question.getUpdatedAt(),
-                    question.getViewCount(),
-                    question.getScore(),
-                    question.getAnswers() != null ? question.getAnswers().size() : 0,
-                    question.getComments(),
-                    tagResponseDtoList
-            );
-        });
-
-        // Add pagination attributes to model
-        model.addAttribute("questionResponseDtoList", questionResponseDtoPage.getContent());
-        model.addAttribute("page", questionResponseDtoPage);
-        model.addAttribute("currentPage", questionResponseDtoPage.getNumber());
-        model.addAttribute("totalPages", questionResponseDtoPage.getTotalPages());
-        model.addAttribute("totalItems", questionResponseDtoPage.getTotalElements());
+    private QuestionResponseDto toListItem(Question question) {
+        List<TagResponseDto> tagResponseDtoList = question.getTags().stream()
+                .map(tag -> new TagResponseDto(tag.getId(), tag.getName(), Collections.emptyList()))
+                .collect(Collectors.toList());
 
-        // Preserve query parameters for pagination links
-        model.addAttribute("query", query);
-        model.addAttribute("sort", sortParam);
-        model.addAttribute("filters", filterParams);
-        model.addAttribute("daysOld", daysOld);
-        model.addAttribute("tags", tags);
-       return "questions";
+        return new QuestionResponseDto(
+                question.getId(),
+                question.getAuthor().getId(),
+                question.getAuthor().getName(),
+                question.getAuthor().getEmail(),
+                question.getAuthor().getProfileImageUrl(),
+                question.getAuthor().getReputation(),
+                question.getTitle(),
+                markdownRenderService.excerptHtml(question),
+                question.getCreatedAt(),
+                question.getUpdatedAt(),
+                viewCountBuffer.viewsOf(question),
+                question.getScore(),
+                question.getAnswerCount(),
+                question.getComments(),
+                tagResponseDtoList
+        );
     }
 
     @GetMapping("/new")
@@ -162,16 +309,15 @@ public class QuestionController {
     @GetMapping("/{id}")
     public String getQuestion(@PathVariable Long id,
                               Model model,
-                              Principal principal){
-        // Increment view count for this hit
+                              Principal principal,
+                              HttpServletRequest request){
+        QuestionPageLoader.QuestionPage page = questionPageLoader.load(id, 10).get();
+        Question question = page.question();
+        // The question exists: count this hit, and remember the viewer for the unique count
         questionService.incrementViewCount(id);
-        Question question = questionService.findById(id).get();
+        viewerSketchService.questionViewed(id, ViewerSketchService.viewerHash(principal, request));
 
-        List<Tag> tags = question.getTags();
-        List<Answer> answers = answerService.getAnswers(question.getId());
-        answers.sort(Comparator.comparing(Answer::isAccepted).reversed());
-
-        List<TagResponseDto> tagResponseDtoList = tags.stream()
+        List<TagResponseDto> tagResponseDtoList = question.getTags().stream()
                 .map(tag -> new TagResponseDto(tag.getId(), tag.getName(), Collections.emptyList()))
                 .collect(Collectors.toList());
 
@@ -185,20 +331,88 @@ public class QuestionController {
                 question.getBody(),
                 question.getCreatedAt(),
                 question.getUpdatedAt(),
-                question.getViewCount(),
+                viewCountBuffer.viewsOf(question),
                 question.getScore(),
-                answers != null ? answers.size() : 0,
-                question.getComments(),
+                question.getAnswerCount(),
+                page.questionComments().comments(),
                 tagResponseDtoList
                 );
         model.addAttribute("question", questionResponseDto);
-        Parser parser = Parser.builder().build();
-        HtmlRenderer renderer = HtmlRenderer.builder().build();
-        List<AnswerResponseDto> answerResponseDtos = answers.stream().map(answer -> {
+        model.addAttribute("questionId", id);
+        model.addAttribute("questionAuthorEmail", question.getAuthor().getEmail());
+        model.addAttribute("questionCommentsCursor", page.questionComments().nextCursor());
+        model.addAttribute("questionMoreComments", page.questionComments().remaining());
+
+        model.addAttribute("relatedQuestions", page.relatedQuestions());
+
+        model.addAttribute("questionHtml", markdownRenderService.questionHtml(question));
+        model.addAttribute("answers", toAnswerDtos(id, page.answers()));
+        model.addAttribute("answersCursor", page.answers().nextCursor());
+        model.addAttribute("uniqueViewers", viewerSketchService.uniqueQuestionViewers(id));
+
+        // The viewer's votes on the question and the answers shown, and whether they follow it
+        ViewerStateService.ViewerState viewer = viewerStateService.forPosts(viewerId(principal), List.of(id),
+                answerIdsOf(page.answers()));
+        model.addAttribute("viewer", viewer);
+        model.addAttribute("isFollowing", viewer.followsQuestion(id));
+        // Load answers also if needed
+        return "question-show";
+    }
+
+    // Next chunk of answers on the question page, rendered as the page's own answer markup. The fragment ends
+    // with its own "show more" link while answers remain.
+    @GetMapping("/{id}/answers")
+    public String getMoreAnswers(@PathVariable Long id,
+                                 @RequestParam(value = "cursor", required = false) String cursor,
+                                 Model model,
+                                 Principal principal) {
+        QuestionPageLoader.AnswerChunk chunk = AnswerCursor.decode(cursor)
+                .map(after -> questionPageLoader.loadAnswers(id, after))
+                .orElseGet(() -> new QuestionPageLoader.AnswerChunk(List.of(), Map.of(), null));
+        model.addAttribute("questionId", id);
+        model.addAttribute("questionAuthorEmail", chunk.answers().isEmpty() ? null : questionPageLoader.authorEmailOf(id));
+        model.addAttribute("answers", toAnswerDtos(id, chunk));
+        model.addAttribute("answersCursor", chunk.nextCursor());
+        model.addAttribute("viewer", viewerStateService.forPosts(viewerId(principal), List.of(), answerIdsOf(chunk)));
+        return "question-show :: answer-chunk";
+    }
+
+    // Next comments on the question, or on one of its answers when answerId is given
+    @GetMapping("/{id}/comments")
+    public String getMoreComments(@PathVariable Long id,
+                                  @RequestParam(value = "answerId", required = false) Long answerId,
+                                  @RequestParam(value = "cursor", required = false) String cursor,
+                                  Model model) {
+        QuestionPageLoader.CommentChunk chunk = CommentCursor.decode(cursor)
+                .map(after -> questionPageLoader.loadComments(id, answerId, after))
+                .orElseGet(() -> new QuestionPageLoader.CommentChunk(List.of(), null, 0));
+        model.addAttribute("questionId", id);
+        model.addAttribute("answerId", answerId);
+        model.addAttribute("comments", chunk.comments());
+        model.addAttribute("commentsCursor", chunk.nextCursor());
+        model.addAttribute("moreComments", chunk.remaining());
+        return answerId == null ? "question-show :: question-comments" : "question-show :: answer-comments";
+    }
+
+    private static List<Long> answerIdsOf(QuestionPageLoader.AnswerChunk chunk) {
+        return chunk.answers().stream().map(Answer::getId).toList();
+    }
+
+    // Form logins carry the user id in the principal; anything else is looked up by name
+    private Long viewerId(Principal principal) {
+        if (principal instanceof Authentication authentication && authentication.getPrincipal() instanceof UserPrincipal user) {
+            return user.getId();
+        }
+        return principal == null ? null : userService.findByEmail(principal.getName()).map(User::getId).orElse(null);
+    }
+
+    private List<AnswerResponseDto> toAnswerDtos(Long questionId, QuestionPageLoader.AnswerChunk chunk) {
+        return chunk.answers().stream().map(answer -> {
             String markdownBody = answer.getBody() != null ? answer.getBody() : "";
-            String htmlBody = renderer.render(parser.parse(markdownBody));
+            String htmlBody = markdownRenderService.answerHtml(answer);
+            QuestionPageLoader.CommentChunk comments = chunk.commentsOf(answer);
             return new AnswerResponseDto(
-                    answer.getQuestion().getId(),
+                    questionId,
                     answer.getId(),
                     markdownBody,
                     htmlBody,
@@ -207,28 +421,11 @@ public class QuestionController {
                     answer.getCreatedAt(),
                     answer.getUpdatedAt(),
                     answer.getScore(),
-                    answer.getComments(),
-                    answer.isAccepted());
+                    comments.comments(),
+                    answer.isAccepted(),
+                    comments.nextCursor(),
+                    comments.remaining());
         }).toList();
-
-        List<Question> relatedQuestions = questionService.getRelatedQuestions(id, 10);
-        model.addAttribute("relatedQuestions", relatedQuestions);
-
-        String markdown = questionResponseDto.body();
-        String html = renderer.render(parser.parse(markdown));
-        model.addAttribute("questionHtml", html);
-        model.addAttribute("answers", answerResponseDtos);
-
-        if (principal != null) {
-            userService.findByEmail(principal.getName()).ifPresent(user -> {
-                boolean following = followService.isFollowingQuestion(user.getId(), id);
-                model.addAttribute("isFollowing", following);
-            });
-        } else {
-            model.addAttribute("isFollowing", false);
-        }
-        // Load answers also if needed
-        return "question-show";
     }
 
     @GetMapping("/edit/{id}")
@@ -253,11 +450,10 @@ public class QuestionController {
     @PostMapping("/vote/{id}")
     public String voteQuestion(@PathVariable Long id,
                                @RequestParam("choice") String choice,
-                               @RequestParam("postType") String postType,
                                @AuthenticationPrincipal UserPrincipal principal,
                                Model model){
         Question question = questionService.findById(id).get();
-        questionService.voteQuestion(question, choice, postType, principal, id);
+        questionService.voteQuestion(question, choice, principal, id);
         return "redirect:/questions/" + question.getId();
     }
 
@@ -281,35 +477,17 @@ public class QuestionController {
         return "redirect:/questions/" + id;
     }
 
-    private String truncateHtml(String html, int maxLength) {
-        // Replace img tags with dots
-        String htmlWithDots = html.replaceAll("<img[^>]*>", "••• ");
-
-        // Remove all HTML tags for plain text
-        String plainText = htmlWithDots.replaceAll("<[^>]+>", "");
-
-        if (plainText.length() <= maxLength) {
-            return "<p>" + plainText + "</p>";
-        }
-
-        String truncated = plainText.substring(0, maxLength).trim() + "...";
-        return "<p>" + truncated + "</p>";
-    }
+    // Old search URL. The list page runs the same search with the same parameters, and pages it with the offset
+    // cap and cursors; keyword searches keep their relevance order unless a sort was asked for.
     @GetMapping("/search")
     public String searchAll(
             @RequestParam(value = "q", required = false, defaultValue = "") String query,
-            @PageableDefault(size = 15) Pageable pageable,
-            Model model) {
-
-        Page<QuestionResponseDto> searchResults = questionService.search(query, pageable);
-
-        model.addAttribute("query", query);
-        model.addAttribute("questions", searchResults.getContent());
-        model.addAttribute("currentPage", searchResults.getNumber());
-        model.addAttribute("totalPages", searchResults.getTotalPages());
-        model.addAttribute("hasNext", searchResults.hasNext());
-        model.addAttribute("hasPrevious", searchResults.hasPrevious());
-
-        return "search-results";
+            @RequestParam(value = "sort", required = false) String sortParam,
+            HttpServletRequest request) {
+        UriComponentsBuilder target = UriComponentsBuilder.fromPath("/questions").query(request.getQueryString());
+        if (sortParam == null && questionService.hasKeywords(query)) {
+            target.replaceQueryParam("sort", "Relevance");
+        }
+        return "redirect:" + target.build().toUriString();
     }
 }
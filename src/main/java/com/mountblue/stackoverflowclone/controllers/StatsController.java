@@ -0,0 +1,58 @@
+package com.mountblue.stackoverflowclone.controllers;
+
+import com.mountblue.stackoverflowclone.configurations.AnonymousPageCacheFilter;
+import com.mountblue.stackoverflowclone.services.AISuggestionService;
+import com.mountblue.stackoverflowclone.services.MarkdownRenderService;
+import com.mountblue.stackoverflowclone.services.SearchResultCache;
+import com.mountblue.stackoverflowclone.services.VoteService;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+// Read-only counters for the in-process caches
+@RestController
+@RequestMapping("/api/stats")
+public class StatsController {
+    private final SearchResultCache searchResultCache;
+    private final MarkdownRenderService markdownRenderService;
+    private final AnonymousPageCacheFilter anonymousPageCacheFilter;
+    private final AISuggestionService aiSuggestionService;
+    private final VoteService voteService;
+
+    public StatsController(SearchResultCache searchResultCache,
+                           MarkdownRenderService markdownRenderService,
+                           AnonymousPageCacheFilter anonymousPageCacheFilter,
+                           AISuggestionService aiSuggestionService,
+                           VoteService voteService) {
+        this.searchResultCache = searchResultCache;
+        this.markdownRenderService = markdownRenderService;
+        this.anonymousPageCacheFilter = anonymousPageCacheFilter;
+        this.aiSuggestionService = aiSuggestionService;
+        this.voteService = voteService;
+    }
+
+    @GetMapping("/search-cache")
+    public SearchResultCache.Stats getSearchCacheStats() {
+        return searchResultCache.getStats();
+    }
+
+    @GetMapping("/markdown-render")
+    public MarkdownRenderService.Stats getMarkdownRenderStats() {
+        return markdownRenderService.getStats();
+    }
+
+    @GetMapping("/page-cache")
+    public AnonymousPageCacheFilter.Stats getPageCacheStats() {
+        return anonymousPageCacheFilter.getStats();
+    }
+
+    @GetMapping("/ai-suggestions")
+    public AISuggestionService.Stats getAISuggestionStats() {
+        return aiSuggestionService.getStats();
+    }
+
+    @GetMapping("/votes")
+    public VoteService.Stats getVoteStats() {
+        return voteService.getStats();
+    }
+}
@@ -0,0 +1,24 @@
+package com.mountblue.stackoverflowclone.controllers;
+
+import com.mountblue.stackoverflowclone.services.TagSuggestIndex;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/tags")
+public class TagApiController {
+    private final TagSuggestIndex tagSuggestIndex;
+
+    public TagApiController(TagSuggestIndex tagSuggestIndex) {
+        this.tagSuggestIndex = tagSuggestIndex;
+    }
+
+    // Most used tags starting with the prefix, served from memory
+    @GetMapping("/suggest")
+    public List<TagSuggestIndex.Suggestion> suggest(
+            @RequestParam(value = "prefix", required = false, defaultValue = "") String prefix,
+            @RequestParam(value = "limit", required = false, defaultValue = "10") int limit) {
+        return tagSuggestIndex.suggest(prefix, limit);
+    }
+}
@@ -19,6 +19,7 @@ public class TagController {
     @GetMapping
     public String listTags(Model model) {
         model.addAttribute("tags", tagService.getAllTags());
+        model.addAttribute("tagCounts", tagService.getQuestionCounts());
         return "all-tags";
     }
 }
\ No newline at end of file
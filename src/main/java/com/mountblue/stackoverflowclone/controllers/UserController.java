@@ -9,6 +9,7 @@ import com.mountblue.stackoverflowclone.models.User;
 import com.mountblue.stackoverflowclone.services.UserProfileService;
 import com.mountblue.stackoverflowclone.services.ImageUploadService;
 import com.mountblue.stackoverflowclone.services.UserService;
+import com.mountblue.stackoverflowclone.services.ViewerSketchService;
 import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
@@ -35,15 +36,18 @@ public class UserController {
     private final UserDetailsService userDetailsService;
     private final UserProfileService userProfileService;
     private final ImageUploadService imageUploadService;
+    private final ViewerSketchService viewerSketchService;
 
     public UserController(UserService userService,
                           UserDetailsService userDetailsService,
                           UserProfileService userProfileService,
-                          ImageUploadService imageUploadService) {
+                          ImageUploadService imageUploadService,
+                          ViewerSketchService viewerSketchService) {
         this.userService = userService;
         this.userDetailsService = userDetailsService;
         this.userProfileService = userProfileService;
         this.imageUploadService = imageUploadService;
+        this.viewerSketchService = viewerSketchService;
     }
 
     @GetMapping("/login")
@@ -118,10 +122,10 @@ public class UserController {
     public String showUserProfile(@PathVariable Long userId,
                                   @RequestParam(required = false, defaultValue = "newest") String tab,
                                   Principal principal,
+                                  HttpServletRequest request,
                                   Model model) {
-        maybeIncrementProfileViewCount(userId, principal);
-
         User user = userService.findById(userId);
+        maybeIncrementProfileViewCount(userId, principal, request);
         List<Question> userQuestions = userProfileService.getUserQuestions(userId);
         List<Answer> userAnswers = userProfileService.getUserAnswersWithQuestions(userId);
         Map<Tag, Long> userTagsWithCount = userProfileService.getUserTagsWithCount(userId);
@@ -136,7 +140,8 @@ public class UserController {
         model.addAttribute("totalAnswers", userAnswers.size());
         model.addAttribute("currentTab", tab);
         model.addAttribute("activeSection", "questions");
-        model.addAttribute("profileViews", user.getProfileViewCount());
+        model.addAttribute("profileViews", userService.getProfileViewCount(user));
+        model.addAttribute("uniqueProfileViewers", viewerSketchService.uniqueProfileViewers(userId));
         model.addAttribute("peopleReached", userProfileService.calculatePeopleReached(userId));
 
         return "profile";
@@ -146,9 +151,10 @@ public class UserController {
     public String showUserQuestions(@PathVariable Long userId,
                                     @RequestParam(defaultValue = "newest") String sortBy,
                                     Principal principal,
+                                    HttpServletRequest request,
                                     Model model) {
-        maybeIncrementProfileViewCount(userId, principal);
         User user = userService.findById(userId);
+        maybeIncrementProfileViewCount(userId, principal, request);
         List<Question> questions = userProfileService.getUserQuestions(userId);
         questions = sortQuestions(questions, sortBy);
 
@@ -163,7 +169,8 @@ public class UserController {
         model.addAttribute("totalAnswers", userAnswers.size());
         model.addAttribute("currentTab", sortBy);
         model.addAttribute("activeSection", "questions");
-        model.addAttribute("profileViews", user.getProfileViewCount());
+        model.addAttribute("profileViews", userService.getProfileViewCount(user));
+        model.addAttribute("uniqueProfileViewers", viewerSketchService.uniqueProfileViewers(userId));
         model.addAttribute("peopleReached", userProfileService.calculatePeopleReached(userId));
         return "profile";
     }
@@ -172,9 +179,10 @@ public class UserController {
     public String showUserAnswers(@PathVariable Long userId,
                                   @RequestParam(defaultValue = "newest") String sortBy,
                                   Principal principal,
+                                  HttpServletRequest request,
                                   Model model) {
-        maybeIncrementProfileViewCount(userId, principal);
         User user = userService.findById(userId);
+        maybeIncrementProfileViewCount(userId, principal, request);
         List<Answer> answers = userProfileService.getUserAnswersWithQuestions(userId);
         answers = sortAnswers(answers, sortBy);
 
@@ -189,7 +197,8 @@ public class UserController {
         model.addAttribute("totalAnswers", answers.size());
         model.addAttribute("currentTab", sortBy);
         model.addAttribute("activeSection", "answers");
-        model.addAttribute("profileViews", user.getProfileViewCount());
+        model.addAttribute("profileViews", userService.getProfileViewCount(user));
+        model.addAttribute("uniqueProfileViewers", viewerSketchService.uniqueProfileViewers(userId));
         model.addAttribute("peopleReached", userProfileService.calculatePeopleReached(userId));
         return "profile";
     }
@@ -198,9 +207,10 @@ public class UserController {
     public String showUserTags(@PathVariable Long userId,
                                @RequestParam(defaultValue = "popular") String sortBy,
                                Principal principal,
+                               HttpServletRequest request,
                                Model model) {
-        maybeIncrementProfileViewCount(userId, principal);
         User user = userService.findById(userId);
+        maybeIncrementProfileViewCount(userId, principal, request);
         Map<Tag, Long> userTagsWithCount = userProfileService.getUserTagsWithCount(userId);
         List<Question> userQuestions = userProfileService.getUserQuestions(userId);
         List<Answer> userAnswers = userProfileService.getUserAnswersWithQuestions(userId);
@@ -212,14 +222,17 @@ public class UserController {
         model.addAttribute("totalQuestions", userQuestions.size());
         model.addAttribute("totalAnswers", userAnswers.size());
         model.addAttribute("activeSection", "tags");
-        model.addAttribute("profileViews", user.getProfileViewCount());
+        model.addAttribute("profileViews", userService.getProfileViewCount(user));
+        model.addAttribute("uniqueProfileViewers", viewerSketchService.uniqueProfileViewers(userId));
         model.addAttribute("peopleReached", userProfileService.calculatePeopleReached(userId));
         return "profile";
     }
 
-    private void maybeIncrementProfileViewCount(Long profileUserId, Principal principal) {
+    // Only called once the profile has been found, so views are never buffered for ids that do not exist
+    private void maybeIncrementProfileViewCount(Long profileUserId, Principal principal, HttpServletRequest request) {
         if (shouldCountProfileView(profileUserId, principal)) {
             userService.incrementProfileViewCount(profileUserId);
+            viewerSketchService.profileViewed(profileUserId, ViewerSketchService.viewerHash(principal, request));
         }
     }
 
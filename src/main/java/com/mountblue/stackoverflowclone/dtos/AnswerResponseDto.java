@@ -15,6 +15,9 @@ public record AnswerResponseDto(Long questionId,
                                 LocalDateTime updatedAt,
                                 int score,
                                 List<Comment> comments,
-                                boolean accepted) {
+                                boolean accepted,
+                                // continuation of comments beyond the first few, null when all are shown
+                                String commentsCursor,
+                                int moreComments) {
 
 }
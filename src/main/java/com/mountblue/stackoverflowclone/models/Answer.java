@@ -6,7 +6,10 @@ import lombok.Setter;
 import java.util.List;
 
 @Entity
-@Table(name = "answers")
+@Table(name = "answers", indexes = {
+        // Question page order (accepted, score, age), read in keyset chunks
+        @Index(name = "idx_answers_question_page_order", columnList = "question_id, accepted DESC, score DESC, created_at, id")
+})
 @Getter
 @Setter
 public class Answer extends BaseModel {
@@ -22,6 +25,12 @@ public class Answer extends BaseModel {
     @Column(columnDefinition = "TEXT")
     private String body;
 
+    // body rendered to HTML when the revision is saved; null for rows saved before the column existed
+    @Column(name = "body_html", columnDefinition = "TEXT")
+    private String bodyHtml;
+
+    // Written in place by VoteService and VoteBatchWriter
+    @Column(updatable = false)
     private int score = 0;
 
     private boolean accepted = false;
@@ -0,0 +1,37 @@
+package com.mountblue.stackoverflowclone.models;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.Optional;
+
+// Continuation token for the answers of a question page, in page order: accepted first, then score descending,
+// then oldest first, with id as the final tiebreaker. It carries the sort key of the last answer served.
+public record AnswerCursor(boolean accepted, int score, LocalDateTime createdAt, long id) {
+
+    public static AnswerCursor after(Answer answer) {
+        return new AnswerCursor(answer.isAccepted(), answer.getScore(), answer.getCreatedAt(), answer.getId());
+    }
+
+    public String encode() {
+        String raw = accepted + "|" + score + "|" + createdAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Empty for malformed tokens, so callers fall back to the first chunk
+    public static Optional<AnswerCursor> decode(String token) {
+        if (token == null || token.isBlank()) return Optional.empty();
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|");
+            if (parts.length != 4) return Optional.empty();
+            return Optional.of(new AnswerCursor(
+                    Boolean.parseBoolean(parts[0]),
+                    Integer.parseInt(parts[1]),
+                    LocalDateTime.parse(parts[2]),
+                    Long.parseLong(parts[3])));
+        } catch (RuntimeException e) {
+            return Optional.empty();
+        }
+    }
+}
@@ -5,7 +5,10 @@ import lombok.Getter;
 import lombok.Setter;
 
 @Entity
-@Table(name = "comments")
+@Table(name = "comments", indexes = {
+        @Index(name = "idx_comments_question_created_at_id", columnList = "question_id, created_at, id"),
+        @Index(name = "idx_comments_answer_created_at_id", columnList = "answer_id, created_at, id")
+})
 @Getter
 @Setter
 public class Comment extends BaseModel {
@@ -0,0 +1,32 @@
+package com.mountblue.stackoverflowclone.models;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.Optional;
+
+// Continuation token for the comments of one post, which are shown oldest first: (createdAt, id) of the last
+// comment served.
+public record CommentCursor(LocalDateTime createdAt, long id) {
+
+    public static CommentCursor after(Comment comment) {
+        return new CommentCursor(comment.getCreatedAt(), comment.getId());
+    }
+
+    public String encode() {
+        String raw = createdAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static Optional<CommentCursor> decode(String token) {
+        if (token == null || token.isBlank()) return Optional.empty();
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|");
+            if (parts.length != 2) return Optional.empty();
+            return Optional.of(new CommentCursor(LocalDateTime.parse(parts[0]), Long.parseLong(parts[1])));
+        } catch (RuntimeException e) {
+            return Optional.empty();
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.mountblue.stackoverflowclone.models;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+// Change counter of a question ('Q') or of a user ('U') as shown on question pages, or of a question listing ('L':
+// the global one at subject id 0, and one per tag id). Read and written through JDBC by ContentVersionService and
+// ListingWatermarkService; the entity only describes the table.
+@Entity
+@Table(name = "content_version", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_content_version_subject", columnNames = {"subject_type", "subject_id"})
+})
+@Getter
+@Setter
+public class ContentVersion extends BaseModel {
+
+    @Column(name = "subject_type", length = 1, nullable = false)
+    private String subjectType;
+
+    @Column(name = "subject_id", nullable = false)
+    private Long subjectId;
+
+    @Column(name = "version", nullable = false)
+    private long version;
+}
@@ -5,7 +5,10 @@ import lombok.Getter;
 import lombok.Setter;
 
 @Entity
-@Table(name = "follows")
+@Table(name = "follows", indexes = {
+        // Follow checks for a viewer, one object or a page of them
+        @Index(name = "idx_follows_user_object", columnList = "user_id, object_type, object_id")
+})
 @Getter
 @Setter
 public class Follow extends BaseModel {
@@ -7,6 +7,11 @@ import lombok.Setter;
 import java.util.List;
 
 @Entity
+@Table(name = "question", indexes = {
+        @Index(name = "idx_question_created_at_id", columnList = "created_at, id"),
+        @Index(name = "idx_question_score_created_at_id", columnList = "score, created_at, id"),
+        @Index(name = "idx_question_answer_count_created_at_id", columnList = "answer_count, created_at, id")
+})
 @Getter
 @Setter
 public class Question extends BaseModel {
@@ -17,14 +22,31 @@ public class Question extends BaseModel {
 
     private String title;
 
+    // The TEXT columns are loaded on first access (bytecode enhancement), so list pages never read them
+    @Basic(fetch = FetchType.LAZY)
     @Column(columnDefinition = "TEXT")
     private String body;
 
-    @Column(name = "view_count", nullable = false)
+    // body rendered to HTML when the revision is saved; null for rows saved before the column existed
+    @Basic(fetch = FetchType.LAZY)
+    @Column(name = "body_html", columnDefinition = "TEXT")
+    private String bodyHtml;
+
+    // Plain-text start of the body shown on list pages, at most MarkdownRenderService.EXCERPT_LENGTH chars plus "..."
+    @Column(name = "excerpt", length = 200)
+    private String excerpt;
+
+    // Written only by ViewCountBuffer's batched flush. Like the vote totals and answer statistics below it is not
+    // updatable through JPA, so saving a stale entity cannot roll it back.
+    @Column(name = "view_count", nullable = false, updatable = false)
     private Long viewCount = 0L;
 
+    // Vote totals, written in place by VoteService and VoteBatchWriter
+    @Column(updatable = false)
     private int score = 0;
+    @Column(updatable = false)
     private int upvote = 0;
+    @Column(updatable = false)
     private int downvote = 0;
 
     @OneToMany(
@@ -49,5 +71,20 @@ public class Question extends BaseModel {
     )
     private List<Tag> tags;
 
+    // Answer statistics, maintained by QuestionRepository.refreshAnswerStats whenever an answer is saved, voted,
+    // accepted or deleted.
+    @Column(name = "answer_count", nullable = false, insertable = false, updatable = false,
+            columnDefinition = "integer not null default 0")
+    private int answerCount = 0;
+
+    @Column(name = "accepted_answer_id", insertable = false, updatable = false)
+    private Long acceptedAnswerId;
+
+    // null while the question has no answers
+    @Column(name = "max_answer_score", insertable = false, updatable = false)
+    private Integer maxAnswerScore;
+
+    // Has an accepted or an upvoted answer
+    @Column(updatable = false)
     private boolean isAnswered = false;
 }
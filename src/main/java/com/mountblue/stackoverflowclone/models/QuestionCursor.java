@@ -0,0 +1,34 @@
+package com.mountblue.stackoverflowclone.models;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.Optional;
+
+// Opaque continuation token for keyset pagination of the question list. It carries the sort key of the
+// last row served: (createdAt, id) for Newest/Oldest, plus score or answer count for the other sorts.
+public record QuestionCursor(SortType sortType, long sortValue, LocalDateTime createdAt, long id) {
+
+    public String encode() {
+        String raw = sortType.name() + "|" + sortValue + "|" + createdAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Empty for malformed tokens or tokens issued for a different sort, so callers fall back to the first page
+    public static Optional<QuestionCursor> decode(String token, SortType expectedSort) {
+        if (token == null || token.isBlank()) return Optional.empty();
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|");
+            if (parts.length != 4) return Optional.empty();
+            QuestionCursor cursor = new QuestionCursor(
+                    SortType.valueOf(parts[0]),
+                    Long.parseLong(parts[1]),
+                    LocalDateTime.parse(parts[2]),
+                    Long.parseLong(parts[3]));
+            return cursor.sortType() == expectedSort ? Optional.of(cursor) : Optional.empty();
+        } catch (RuntimeException e) {
+            return Optional.empty();
+        }
+    }
+}
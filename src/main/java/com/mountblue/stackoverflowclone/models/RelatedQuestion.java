@@ -0,0 +1,32 @@
+package com.mountblue.stackoverflowclone.models;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+// Precomputed neighbours of a question, best first. Written by RelatedQuestionService through JDBC.
+@Entity
+@Table(name = "related_question",
+        uniqueConstraints = {
+                @UniqueConstraint(name = "uk_related_question_pair", columnNames = {"question_id", "related_id"})
+        },
+        indexes = {
+                @Index(name = "idx_related_question_question_rank", columnList = "question_id, rank"),
+                @Index(name = "idx_related_question_related", columnList = "related_id")
+        })
+@Getter
+@Setter
+public class RelatedQuestion extends BaseModel {
+
+    @Column(name = "question_id", nullable = false)
+    private Long questionId;
+
+    @Column(name = "related_id", nullable = false)
+    private Long relatedId;
+
+    @Column(nullable = false)
+    private double score;
+
+    @Column(nullable = false)
+    private int rank;
+}
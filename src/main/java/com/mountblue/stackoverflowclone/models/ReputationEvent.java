@@ -0,0 +1,35 @@
+package com.mountblue.stackoverflowclone.models;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+// Append-only ledger behind users.reputation. units is +1 when the thing happened and -1 when it was undone
+// (a vote withdrawn or flipped, an accept moved to another answer); delta is units times the points the type
+// was worth when the event was written. Rows are inserted by ReputationService only.
+@Entity
+@Table(name = "reputation_events", indexes = {
+        // Recompute sums the events of a range of users
+        @Index(name = "idx_reputation_events_user", columnList = "user_id, id")
+})
+@Getter
+@Setter
+public class ReputationEvent extends BaseModel {
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "type", nullable = false, length = 32)
+    private ReputationEventType type;
+
+    @Column(name = "post_id", nullable = false)
+    private Long postId;
+
+    @Column(name = "units", nullable = false)
+    private int units;
+
+    @Column(name = "delta", nullable = false)
+    private int delta;
+}
@@ -0,0 +1,30 @@
+package com.mountblue.stackoverflowclone.models;
+
+// What a reputation event records, and what it is worth under the current rules. Changing a value here
+// affects new events right away and old ones after ReputationRecomputeWorker has run.
+public enum ReputationEventType {
+    QUESTION_UPVOTED(5),
+    QUESTION_DOWNVOTED(-2),
+    ANSWER_UPVOTED(10),
+    ANSWER_DOWNVOTED(-2),
+    // To the author of the accepted answer
+    ANSWER_ACCEPTED(15),
+    // To the question author who accepted it
+    ACCEPTED_AN_ANSWER(2);
+
+    private final int points;
+
+    ReputationEventType(int points) {
+        this.points = points;
+    }
+
+    public int getPoints() {
+        return points;
+    }
+
+    // The event for a vote of this value (+1 or -1) on a post of this type ("question" or "answer")
+    public static ReputationEventType forVote(String postType, int voteValue) {
+        if ("question".equals(postType)) return voteValue > 0 ? QUESTION_UPVOTED : QUESTION_DOWNVOTED;
+        return voteValue > 0 ? ANSWER_UPVOTED : ANSWER_DOWNVOTED;
+    }
+}
@@ -1,5 +1,6 @@
 package com.mountblue.stackoverflowclone.models;
 
+import java.time.LocalDate;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -10,15 +11,51 @@ public class SearchQuery {
     private final Map<String, Integer> numericFilters;
     private final Map<String, String> stringFilters;
     private final List<String> tags;
+    // score:5..20, answers:..0 - either bound may be open
+    private final Map<String, NumericRange> numericRanges;
+    // created:2025-01..2025-06
+    private final DateRange createdRange;
+    // -[php]
+    private final List<String> excludedTags;
+    // [java] or [kotlin] - a question must carry at least one tag of every group
+    private final List<List<String>> anyTagGroups;
+
+    public record NumericRange(Integer min, Integer max) {
+    }
+
+    // [from, toExclusive); null means unbounded on that side
+    public record DateRange(LocalDate from, LocalDate toExclusive) {
+    }
 
     public SearchQuery(List<String> keywords,
                        Map<String, Integer> numericFilters,
                        Map<String, String> stringFilters,
                        List<String> tags) {
+        this(keywords, numericFilters, stringFilters, tags, Map.of(), null, List.of(), List.of());
+    }
+
+    public SearchQuery(List<String> keywords,
+                       Map<String, Integer> numericFilters,
+                       Map<String, String> stringFilters,
+                       List<String> tags,
+                       Map<String, NumericRange> numericRanges,
+                       DateRange createdRange,
+                       List<String> excludedTags,
+                       List<List<String>> anyTagGroups) {
         this.keywords = keywords == null ? List.of() : List.copyOf(keywords);
         this.numericFilters = numericFilters == null ? Map.of() : Map.copyOf(numericFilters);
         this.stringFilters = stringFilters == null ? Map.of() : Map.copyOf(stringFilters);
         this.tags = tags == null ? List.of() : List.copyOf(tags);
+        this.numericRanges = numericRanges == null ? Map.of() : Map.copyOf(numericRanges);
+        this.createdRange = createdRange;
+        this.excludedTags = excludedTags == null ? List.of() : List.copyOf(excludedTags);
+        this.anyTagGroups = anyTagGroups == null ? List.of() : anyTagGroups.stream().map(List::copyOf).toList();
+    }
+
+    // Same query with the tag list replaced, e.g. after merging in the tags selected in the UI
+    public SearchQuery withTags(List<String> replacementTags) {
+        return new SearchQuery(keywords, numericFilters, stringFilters, replacementTags,
+                numericRanges, createdRange, excludedTags, anyTagGroups);
     }
 
     public List<String> getKeywords() {
@@ -34,10 +71,27 @@ public class SearchQuery {
     }
 
     public boolean isEmpty() {
-        return keywords.isEmpty() && numericFilters.isEmpty() && stringFilters.isEmpty() && tags.isEmpty();
+        return keywords.isEmpty() && numericFilters.isEmpty() && stringFilters.isEmpty() && tags.isEmpty()
+                && numericRanges.isEmpty() && createdRange == null && excludedTags.isEmpty() && anyTagGroups.isEmpty();
     }
 
     public List<String> getTags() {
         return Collections.unmodifiableList(tags);
     }
+
+    public Map<String, NumericRange> getNumericRanges() {
+        return numericRanges;
+    }
+
+    public DateRange getCreatedRange() {
+        return createdRange;
+    }
+
+    public List<String> getExcludedTags() {
+        return excludedTags;
+    }
+
+    public List<List<String>> getAnyTagGroups() {
+        return anyTagGroups;
+    }
 }
@@ -2,5 +2,18 @@ package com.mountblue.stackoverflowclone.models;
 
 public enum SortType {
     NEWEST,
-    HIGHEST_SCORE
-}
\ No newline at end of file
+    OLDEST,
+    HIGHEST_SCORE,
+    MOST_ANSWERS,
+    // Only meaningful with a ranking search backend; falls back to NEWEST otherwise
+    RELEVANCE;
+
+    // Maps the "sort" request parameter used by the question list (Newest, Oldest, HighestScore, MostAnswers, Relevance)
+    public static SortType fromParam(String sortParam) {
+        if ("Oldest".equalsIgnoreCase(sortParam)) return OLDEST;
+        if ("HighestScore".equalsIgnoreCase(sortParam)) return HIGHEST_SCORE;
+        if ("MostAnswers".equalsIgnoreCase(sortParam)) return MOST_ANSWERS;
+        if ("Relevance".equalsIgnoreCase(sortParam)) return RELEVANCE;
+        return NEWEST;
+    }
+}
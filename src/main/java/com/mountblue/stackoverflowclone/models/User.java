@@ -22,6 +22,8 @@ public class User extends BaseModel {
     @Column(name = "profile_image_public_id")
     private String profileImagePublicId;
 
+    // Sum of the user's reputation events, only written by ReputationService's in-place deltas and recompute
+    @Column(updatable = false)
     private int reputation;
 
     @Column(name = "last_seen")
@@ -36,7 +38,8 @@ public class User extends BaseModel {
     @Column
     private String name;
 
-    @Column(name = "profile_view_count")
+    // Written only by ViewCountBuffer's batched flush
+    @Column(name = "profile_view_count", updatable = false)
     private Long profileViewCount = 0L;
 
     @OneToMany(
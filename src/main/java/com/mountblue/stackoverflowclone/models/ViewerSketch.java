@@ -0,0 +1,25 @@
+package com.mountblue.stackoverflowclone.models;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+// HyperLogLog registers of the distinct viewers of one question ('Q') or profile ('P').
+// Read and written by ViewerSketchService through JDBC; the entity only describes the table.
+@Entity
+@Table(name = "viewer_sketch", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_viewer_sketch_subject", columnNames = {"subject_type", "subject_id"})
+})
+@Getter
+@Setter
+public class ViewerSketch extends BaseModel {
+
+    @Column(name = "subject_type", length = 1, nullable = false)
+    private String subjectType;
+
+    @Column(name = "subject_id", nullable = false)
+    private Long subjectId;
+
+    @Column(name = "registers", columnDefinition = "bytea", nullable = false)
+    private byte[] registers;
+}
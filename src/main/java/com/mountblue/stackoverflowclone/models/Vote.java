@@ -4,8 +4,13 @@ import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
 
+// The unique (user_id, post_id, post_type) index VoteService upserts against is created by
+// VoteService.ensureSchema, after it has removed duplicate rows that would make creating it fail
 @Entity
-@Table(name = "votes")
+@Table(name = "votes", indexes = {
+        // Totals per post, for VoteCounterReconciliationWorker
+        @Index(name = "idx_votes_post", columnList = "post_id, post_type, vote_value")
+})
 @Getter
 @Setter
 public class Vote extends BaseModel {
@@ -1,10 +1,12 @@
 package com.mountblue.stackoverflowclone.repositories;
 
 import com.mountblue.stackoverflowclone.models.Answer;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -24,6 +26,28 @@ public interface AnswerRepository extends JpaRepository<Answer, Long> {
             "ORDER BY a.accepted DESC, a.score DESC, a.createdAt ASC")
     List<Answer> findByQuestionIdOrderByAcceptedAndScore(@Param("questionId") Long questionId);
 
+    // Question page chunks: the order above with id as the final tiebreaker, so a cursor names one position
+    @Query("SELECT a FROM Answer a " +
+            "LEFT JOIN FETCH a.author " +
+            "WHERE a.question.id = :questionId " +
+            "ORDER BY a.accepted DESC, a.score DESC, a.createdAt ASC, a.id ASC")
+    List<Answer> findPageChunk(@Param("questionId") Long questionId, Pageable pageable);
+
+    @Query("SELECT a FROM Answer a " +
+            "LEFT JOIN FETCH a.author " +
+            "WHERE a.question.id = :questionId " +
+            "AND ((:accepted = true AND a.accepted = false) " +
+            "  OR (a.accepted = :accepted AND (a.score < :score " +
+            "    OR (a.score = :score AND (a.createdAt > :createdAt " +
+            "      OR (a.createdAt = :createdAt AND a.id > :id)))))) " +
+            "ORDER BY a.accepted DESC, a.score DESC, a.createdAt ASC, a.id ASC")
+    List<Answer> findPageChunkAfter(@Param("questionId") Long questionId,
+                                    @Param("accepted") boolean accepted,
+                                    @Param("score") int score,
+                                    @Param("createdAt") LocalDateTime createdAt,
+                                    @Param("id") long id,
+                                    Pageable pageable);
+
 
     @Override
     Optional<Answer> findById(Long answerId);
@@ -1,11 +1,14 @@
 package com.mountblue.stackoverflowclone.repositories;
 
 import com.mountblue.stackoverflowclone.models.Comment;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -14,6 +17,44 @@ public interface CommentRepository extends JpaRepository<Comment, Long> {
     @Query("SELECT c FROM Comment c JOIN FETCH c.author WHERE c.question.id = :questionId ORDER BY c.createdAt ASC")
     List<Comment> findByQuestionIdWithAuthor(@Param("questionId") Long questionId);
 
+    // The first perPost comments of each given answer, and of the question itself when withQuestion is set,
+    // oldest first, with the number of comments each post has: id, answer_id (null for the question), total
+    @Query(value = """
+            SELECT ranked.id, ranked.answer_id, ranked.total
+            FROM (SELECT c.id, c.answer_id,
+                         ROW_NUMBER() OVER (PARTITION BY c.answer_id ORDER BY c.created_at, c.id) AS rn,
+                         COUNT(*) OVER (PARTITION BY c.answer_id) AS total
+                  FROM comments c
+                  WHERE (:withQuestion AND c.question_id = :questionId AND c.answer_id IS NULL)
+                     OR c.answer_id IN (:answerIds)) ranked
+            WHERE ranked.rn <= :perPost
+            """, nativeQuery = true)
+    List<Object[]> findFirstPerPost(@Param("questionId") Long questionId,
+                                    @Param("withQuestion") boolean withQuestion,
+                                    @Param("answerIds") Collection<Long> answerIds,
+                                    @Param("perPost") int perPost);
+
+    @Query("SELECT c FROM Comment c JOIN FETCH c.author WHERE c.id IN :ids ORDER BY c.createdAt ASC, c.id ASC")
+    List<Comment> findAllWithAuthorByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT c FROM Comment c JOIN FETCH c.author " +
+            "WHERE c.question.id = :questionId AND c.answer IS NULL " +
+            "AND (c.createdAt > :createdAt OR (c.createdAt = :createdAt AND c.id > :id)) " +
+            "ORDER BY c.createdAt ASC, c.id ASC")
+    List<Comment> findOnQuestionAfter(@Param("questionId") Long questionId,
+                                      @Param("createdAt") LocalDateTime createdAt,
+                                      @Param("id") long id,
+                                      Pageable pageable);
+
+    @Query("SELECT c FROM Comment c JOIN FETCH c.author " +
+            "WHERE c.answer.id = :answerId " +
+            "AND (c.createdAt > :createdAt OR (c.createdAt = :createdAt AND c.id > :id)) " +
+            "ORDER BY c.createdAt ASC, c.id ASC")
+    List<Comment> findOnAnswerAfter(@Param("answerId") Long answerId,
+                                    @Param("createdAt") LocalDateTime createdAt,
+                                    @Param("id") long id,
+                                    Pageable pageable);
+
     List<Comment> findByQuestionIdOrderByCreatedAtAsc(Long questionId);
 
     List<Comment> findByAnswerIdOrderByCreatedAtAsc(Long answerId);
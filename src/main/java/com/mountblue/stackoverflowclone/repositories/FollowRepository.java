@@ -2,7 +2,10 @@ package com.mountblue.stackoverflowclone.repositories;
 
 import com.mountblue.stackoverflowclone.models.Follow;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -15,4 +18,10 @@ public interface FollowRepository extends JpaRepository<Follow, Long> {
     Optional<Follow> findByUser_IdAndObjectTypeAndObjectId(Long userId, String objectType, Long objectId);
 
     List<Follow> findAllByObjectTypeAndObjectId(String objectType, Long objectId);
+
+    // Which of these objects the user follows
+    @Query("SELECT f.objectId FROM Follow f WHERE f.user.id = :userId AND f.objectType = :objectType AND f.objectId IN :objectIds")
+    List<Long> findObjectIdsByUserAmong(@Param("userId") Long userId,
+                                        @Param("objectType") String objectType,
+                                        @Param("objectIds") Collection<Long> objectIds);
 }
\ No newline at end of file
@@ -5,20 +5,30 @@ import com.mountblue.stackoverflowclone.models.Tag;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 
 @Repository
-public interface QuestionRepository extends JpaRepository<Question, Long> {
+public interface QuestionRepository extends JpaRepository<Question, Long>, JpaSpecificationExecutor<Question>,
+        QuestionRepositoryCustom {
     @Override
     Optional<Question> findById(Long questionId);
 
+    @Query("SELECT DISTINCT q FROM Question q " +
+            "JOIN FETCH q.author " +
+            "LEFT JOIN FETCH q.tags " +
+            "WHERE q.id = :id")
+    Optional<Question> findByIdWithAuthorAndTags(@Param("id") Long id);
+
     @Query("SELECT DISTINCT q FROM Question q " +
             "LEFT JOIN FETCH q.tags " +
             "LEFT JOIN FETCH q.author " +
@@ -35,7 +45,7 @@ public interface QuestionRepository extends JpaRepository<Question, Long> {
     @Query("""
         SELECT q
         FROM Question q
-        WHERE SIZE(q.answers) >= :answerCount
+        WHERE q.answerCount >= :answerCount
         ORDER BY q.createdAt DESC
     """)
     Page<Question> findQuestionsByAnswerCount(@Param("answerCount") int answerCount, Pageable pageable);
@@ -81,4 +91,91 @@ public interface QuestionRepository extends JpaRepository<Question, Long> {
     @Query("UPDATE Question q SET q.viewCount = q.viewCount + 1 WHERE q.id = :id")
     int incrementViewCount(@Param("id") Long id);
 
+    // Recomputes the denormalized answer statistics of one question from its answers. The question row is locked
+    // by a statement of its own first: an UPDATE that waits for the lock would keep the answer aggregate it read
+    // before waiting, and lose the answer or vote whose transaction held the lock.
+    default int refreshAnswerStats(Long questionId) {
+        lockForUpdate(questionId);
+        return recomputeAnswerStats(questionId);
+    }
+
+    @Query(value = "SELECT id FROM question WHERE id = :id FOR UPDATE", nativeQuery = true)
+    List<Long> lockForUpdate(@Param("id") Long id);
+
+    // Only after lockForUpdate, see refreshAnswerStats
+    @Modifying(flushAutomatically = true)
+    @Query(value = """
+        UPDATE question q
+        SET answer_count = s.answer_count,
+            accepted_answer_id = s.accepted_answer_id,
+            max_answer_score = s.max_answer_score,
+            is_answered = (s.accepted_answer_id IS NOT NULL OR COALESCE(s.max_answer_score, 0) > 0)
+        FROM (SELECT COUNT(a.id) AS answer_count,
+                     MAX(a.id) FILTER (WHERE a.accepted) AS accepted_answer_id,
+                     MAX(a.score) AS max_answer_score
+              FROM answers a
+              WHERE a.question_id = :questionId) s
+        WHERE q.id = :questionId
+    """, nativeQuery = true)
+    int recomputeAnswerStats(@Param("questionId") Long questionId);
+
+    // Repairs the statistics of questions with afterId < id <= upToId; returns how many rows were wrong. Locks the
+    // range first for the same reason as refreshAnswerStats.
+    @Transactional
+    default int repairAnswerStats(long afterId, long upToId) {
+        lockRangeForUpdate(afterId, upToId);
+        return recomputeAnswerStatsBetween(afterId, upToId);
+    }
+
+    @Query(value = "SELECT id FROM question WHERE id > :afterId AND id <= :upToId ORDER BY id FOR UPDATE",
+            nativeQuery = true)
+    List<Long> lockRangeForUpdate(@Param("afterId") long afterId, @Param("upToId") long upToId);
+
+    // Only after lockRangeForUpdate, see repairAnswerStats
+    @Modifying
+    @Query(value = """
+        UPDATE question q
+        SET answer_count = s.answer_count,
+            accepted_answer_id = s.accepted_answer_id,
+            max_answer_score = s.max_answer_score,
+            is_answered = (s.accepted_answer_id IS NOT NULL OR COALESCE(s.max_answer_score, 0) > 0)
+        FROM (SELECT q2.id AS question_id,
+                     COUNT(a.id) AS answer_count,
+                     MAX(a.id) FILTER (WHERE a.accepted) AS accepted_answer_id,
+                     MAX(a.score) AS max_answer_score
+              FROM question q2
+              LEFT JOIN answers a ON a.question_id = q2.id
+              WHERE q2.id > :afterId AND q2.id <= :upToId
+              GROUP BY q2.id) s
+        WHERE q.id = s.question_id
+          AND (q.answer_count IS DISTINCT FROM s.answer_count
+               OR q.accepted_answer_id IS DISTINCT FROM s.accepted_answer_id
+               OR q.max_answer_score IS DISTINCT FROM s.max_answer_score
+               OR q.is_answered IS DISTINCT FROM (s.accepted_answer_id IS NOT NULL OR COALESCE(s.max_answer_score, 0) > 0))
+    """, nativeQuery = true)
+    int recomputeAnswerStatsBetween(@Param("afterId") long afterId, @Param("upToId") long upToId);
+
+    @Query("SELECT COALESCE(MAX(q.id), 0) FROM Question q")
+    long findMaxId();
+
+    // Version of the question text, for caches of anything derived from it
+    @Query("SELECT COALESCE(q.updatedAt, q.createdAt) FROM Question q WHERE q.id = :id")
+    Optional<LocalDateTime> findUpdatedAtById(@Param("id") Long id);
+
+    @Query("SELECT q.author.email FROM Question q WHERE q.id = :id")
+    Optional<String> findAuthorEmailById(@Param("id") Long id);
+
+    // Text fields only, for building the keyword index without touching lazy attributes one row at a time
+    @Query("SELECT q.id, q.title, q.body FROM Question q WHERE q.id > :afterId ORDER BY q.id")
+    List<Object[]> findTextAfter(@Param("afterId") long afterId, Pageable pageable);
+
+    // Rows saved before the excerpt column existed: id, body_html, body
+    @Query("SELECT q.id, q.bodyHtml, q.body FROM Question q WHERE q.excerpt IS NULL AND q.id > :afterId ORDER BY q.id")
+    List<Object[]> findMissingExcerptAfter(@Param("afterId") long afterId, Pageable pageable);
+
+    // Backfill only: a row that has an excerpt by now was saved (and rendered) after it was read, and is left alone
+    @Modifying
+    @Query("UPDATE Question q SET q.bodyHtml = :bodyHtml, q.excerpt = :excerpt WHERE q.id = :id AND q.excerpt IS NULL")
+    int updateRenderedBody(@Param("id") Long id, @Param("bodyHtml") String bodyHtml, @Param("excerpt") String excerpt);
+
 }
\ No newline at end of file
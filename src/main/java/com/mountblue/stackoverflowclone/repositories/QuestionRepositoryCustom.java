@@ -0,0 +1,21 @@
+package com.mountblue.stackoverflowclone.repositories;
+
+import com.mountblue.stackoverflowclone.models.Question;
+import com.mountblue.stackoverflowclone.models.SortType;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+public interface QuestionRepositoryCustom {
+
+    List<Long> findIds(Specification<Question> spec);
+
+    // First `limit` rows in the given order, without the count query a Page would need
+    List<Question> findFirst(Specification<Question> spec, SortType sortType, int limit);
+
+    // Forward-only read of every match, with the author fetched. The persistence context is cleared every
+    // `clearEvery` rows, so the consumer must not keep references to earlier rows. Returns the row count.
+    long forEach(Specification<Question> spec, SortType sortType, int fetchSize, int clearEvery,
+                 Consumer<Question> action);
+}
@@ -0,0 +1,81 @@
+package com.mountblue.stackoverflowclone.repositories;
+
+import com.mountblue.stackoverflowclone.models.Question;
+import com.mountblue.stackoverflowclone.models.SortType;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+public class QuestionRepositoryCustomImpl implements QuestionRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Long> findIds(Specification<Question> spec) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<Question> root = query.from(Question.class);
+        query.select(root.<Long>get("id"));
+        Predicate predicate = spec.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        return entityManager.createQuery(query).getResultList();
+    }
+
+    @Override
+    public List<Question> findFirst(Specification<Question> spec, SortType sortType, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Question> query = cb.createQuery(Question.class);
+        Root<Question> root = query.from(Question.class);
+        Predicate predicate = spec.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.orderBy(QuestionSpecifications.orders(sortType, root, cb));
+        return entityManager.createQuery(query).setMaxResults(limit).getResultList();
+    }
+
+    @Override
+    public long forEach(Specification<Question> spec, SortType sortType, int fetchSize, int clearEvery,
+                        Consumer<Question> action) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Question> query = cb.createQuery(Question.class);
+        Root<Question> root = query.from(Question.class);
+        root.fetch("author", JoinType.LEFT);
+        Predicate predicate = spec.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.orderBy(QuestionSpecifications.orders(sortType, root, cb));
+
+        long count = 0;
+        // The fetch size makes the PostgreSQL driver use a cursor instead of buffering the whole result;
+        // that only works inside a transaction
+        try (Stream<Question> rows = entityManager.createQuery(query)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream()) {
+            Iterator<Question> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                action.accept(iterator.next());
+                if (++count % clearEvery == 0) {
+                    entityManager.clear();
+                }
+            }
+        }
+        return count;
+    }
+}
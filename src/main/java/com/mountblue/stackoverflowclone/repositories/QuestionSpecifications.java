@@ -0,0 +1,272 @@
+package com.mountblue.stackoverflowclone.repositories;
+
+import com.mountblue.stackoverflowclone.models.*;
+import jakarta.persistence.criteria.*;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+// Translates a parsed SearchQuery plus the list page filters and sort into a single Criteria query,
+// so filtering, ordering and LIMIT/OFFSET all happen in the database. Keywords (QuestionSearchBackend)
+// and tags (TagBitmapIndex, or hasAllTags) are resolved by the caller and combined with these predicates.
+public final class QuestionSpecifications {
+
+    private QuestionSpecifications() {
+    }
+
+    public static Specification<Question> matching(SearchQuery searchQuery, List<FilterType> filterTypes, Integer daysOld) {
+        List<Specification<Question>> specs = new ArrayList<>();
+
+        Map<String, String> stringFilters = searchQuery.getStringFilters();
+        Map<String, Integer> numericFilters = searchQuery.getNumericFilters();
+
+        String userToken = stringFilters.get("user");
+        if (userToken != null) {
+            specs.add(byAuthor(userToken));
+        }
+
+        if (numericFilters.containsKey("answers")) {
+            specs.add(minAnswers(numericFilters.get("answers")));
+        }
+        if (numericFilters.containsKey("score")) {
+            specs.add(minScore(numericFilters.get("score")));
+        }
+        if (numericFilters.containsKey("views")) {
+            specs.add(minViews(numericFilters.get("views")));
+        }
+        searchQuery.getNumericRanges().forEach((key, range) -> specs.add(inRange(key, range)));
+        if (searchQuery.getCreatedRange() != null) {
+            specs.add(createdWithin(searchQuery.getCreatedRange()));
+        }
+
+        // isaccepted: yes|no|true|false|1|0
+        if (stringFilters.containsKey("isaccepted")) {
+            String val = stringFilters.get("isaccepted");
+            boolean wantAccepted = val != null && (
+                    val.equalsIgnoreCase("yes") ||
+                    val.equalsIgnoreCase("true") ||
+                    val.equals("1")
+            );
+            specs.add(wantAccepted ? hasAcceptedAnswer() : Specification.not(hasAcceptedAnswer()));
+        }
+
+        if (filterTypes != null && filterTypes.contains(FilterType.NO_ANSWERS)) {
+            specs.add(hasNoAnswers());
+        }
+        if (filterTypes != null && filterTypes.contains(FilterType.NO_UPVOTED_OR_ACCEPTED_ANSWER)) {
+            specs.add(Specification.not(hasUpvotedOrAcceptedAnswer()));
+        }
+
+        if (daysOld != null && daysOld > 0) {
+            specs.add(createdOnOrBefore(LocalDateTime.now().minusDays(daysOld)));
+        }
+
+        return Specification.allOf(specs);
+    }
+
+    // Only applied to the row query; the count query Spring Data derives from the same spec has Long results.
+    public static Specification<Question> orderedBy(SortType sortType) {
+        return (root, query, cb) -> {
+            if (query != null && !Long.class.equals(query.getResultType())) {
+                query.orderBy(orders(sortType, root, cb));
+            }
+            return null;
+        };
+    }
+
+    public static List<Order> orders(SortType sortType, Root<Question> root, CriteriaBuilder cb) {
+        Path<LocalDateTime> createdAt = root.get("createdAt");
+        Path<Long> id = root.get("id");
+        return switch (sortType) {
+            case OLDEST -> List.of(cb.asc(createdAt), cb.asc(id));
+            case HIGHEST_SCORE -> List.of(cb.desc(root.get("score")), cb.desc(createdAt), cb.desc(id));
+            case MOST_ANSWERS -> List.of(cb.desc(root.get("answerCount")), cb.desc(createdAt), cb.desc(id));
+            case NEWEST, RELEVANCE -> List.of(cb.desc(createdAt), cb.desc(id));
+        };
+    }
+
+    // Rows strictly after the cursor in the given sort's order; backed by the (created_at, id) and
+    // (score | answer_count, created_at, id) indexes on question
+    public static Specification<Question> after(QuestionCursor cursor) {
+        return (root, query, cb) -> {
+            Path<LocalDateTime> createdAt = root.get("createdAt");
+            Path<Long> id = root.get("id");
+            Predicate tail = cursor.sortType() == SortType.OLDEST
+                    ? cb.or(cb.greaterThan(createdAt, cursor.createdAt()),
+                            cb.and(cb.equal(createdAt, cursor.createdAt()), cb.greaterThan(id, cursor.id())))
+                    : cb.or(cb.lessThan(createdAt, cursor.createdAt()),
+                            cb.and(cb.equal(createdAt, cursor.createdAt()), cb.lessThan(id, cursor.id())));
+
+            Expression<Integer> primary = switch (cursor.sortType()) {
+                case HIGHEST_SCORE -> root.get("score");
+                case MOST_ANSWERS -> root.get("answerCount");
+                default -> null;
+            };
+            if (primary == null) {
+                return tail;
+            }
+            int value = (int) cursor.sortValue();
+            return cb.or(cb.lessThan(primary, value), cb.and(cb.equal(primary, value), tail));
+        };
+    }
+
+    public static Specification<Question> byAuthor(String userToken) {
+        String token = userToken.trim();
+        return (root, query, cb) -> {
+            try {
+                return cb.equal(root.get("author").get("id"), Long.parseLong(token));
+            } catch (NumberFormatException ignore) {
+                // not a numeric id; treat as username
+            }
+            return cb.equal(root.get("author").get("name"), userToken);
+        };
+    }
+
+    // Tags from the query plus an explicit tag:xyz filter, lower-cased and de-duplicated
+    public static Set<String> requiredTags(SearchQuery searchQuery) {
+        Set<String> requiredTags = new LinkedHashSet<>();
+        searchQuery.getTags().forEach(tag -> requiredTags.add(tag.trim().toLowerCase(Locale.ROOT)));
+        String explicitTag = searchQuery.getStringFilters().get("tag");
+        if (explicitTag != null) {
+            requiredTags.add(explicitTag.trim().toLowerCase(Locale.ROOT));
+        }
+        return requiredTags;
+    }
+
+    public static Specification<Question> hasAllTags(Collection<String> tagNames) {
+        return Specification.allOf(tagNames.stream().map(QuestionSpecifications::hasTag).toList());
+    }
+
+    public static Specification<Question> hasTag(String tagName) {
+        String normalized = tagName.trim().toLowerCase(Locale.ROOT);
+        return (root, query, cb) -> {
+            Subquery<Long> sub = query.subquery(Long.class);
+            Root<Question> tagged = sub.correlate(root);
+            Join<Question, Tag> tag = tagged.join("tags");
+            sub.select(tag.<Long>get("id"))
+                    .where(cb.equal(cb.lower(tag.<String>get("name")), normalized));
+            return cb.exists(sub);
+        };
+    }
+
+    public static Specification<Question> minAnswers(int minAnswers) {
+        return (root, query, cb) ->
+                cb.greaterThanOrEqualTo(root.<Integer>get("answerCount"), minAnswers);
+    }
+
+    public static Specification<Question> minScore(int minScore) {
+        return (root, query, cb) -> cb.greaterThanOrEqualTo(root.<Integer>get("score"), minScore);
+    }
+
+    public static Specification<Question> minViews(long minViews) {
+        return (root, query, cb) -> cb.greaterThanOrEqualTo(root.<Long>get("viewCount"), minViews);
+    }
+
+    // score / answers / views between inclusive bounds; a null bound is open
+    public static Specification<Question> inRange(String key, SearchQuery.NumericRange range) {
+        return (root, query, cb) -> {
+            Expression<? extends Number> value = switch (key) {
+                case "answers" -> root.<Integer>get("answerCount");
+                case "views" -> root.<Long>get("viewCount");
+                default -> root.<Integer>get("score");
+            };
+            List<Predicate> bounds = new ArrayList<>(2);
+            if (range.min() != null) bounds.add(cb.ge(value, range.min()));
+            if (range.max() != null) bounds.add(cb.le(value, range.max()));
+            return cb.and(bounds.toArray(new Predicate[0]));
+        };
+    }
+
+    public static Specification<Question> createdWithin(SearchQuery.DateRange range) {
+        return (root, query, cb) -> {
+            Path<LocalDateTime> createdAt = root.get("createdAt");
+            List<Predicate> bounds = new ArrayList<>(2);
+            if (range.from() != null) bounds.add(cb.greaterThanOrEqualTo(createdAt, range.from().atStartOfDay()));
+            if (range.toExclusive() != null) bounds.add(cb.lessThan(createdAt, range.toExclusive().atStartOfDay()));
+            return cb.and(bounds.toArray(new Predicate[0]));
+        };
+    }
+
+    public static Specification<Question> hasAnyTag(Collection<String> tagNames) {
+        return Specification.anyOf(tagNames.stream().map(QuestionSpecifications::hasTag).toList());
+    }
+
+    public static Specification<Question> hasNoneOfTags(Collection<String> tagNames) {
+        return Specification.allOf(tagNames.stream().map(tag -> Specification.not(hasTag(tag))).toList());
+    }
+
+    // Answer filters read the denormalized statistics columns instead of the answers collection
+    public static Specification<Question> hasAcceptedAnswer() {
+        return (root, query, cb) -> cb.isNotNull(root.<Long>get("acceptedAnswerId"));
+    }
+
+    public static Specification<Question> hasUpvotedOrAcceptedAnswer() {
+        // coalesce keeps the predicate two-valued, so not(...) also matches questions without answers
+        return (root, query, cb) -> cb.or(
+                cb.isNotNull(root.<Long>get("acceptedAnswerId")),
+                cb.greaterThan(cb.coalesce(root.<Integer>get("maxAnswerScore"), 0), 0));
+    }
+
+    public static Specification<Question> hasNoAnswers() {
+        return (root, query, cb) -> cb.equal(root.<Integer>get("answerCount"), 0);
+    }
+
+    public static Specification<Question> createdOnOrBefore(LocalDateTime cutoff) {
+        return (root, query, cb) -> cb.lessThanOrEqualTo(root.<LocalDateTime>get("createdAt"), cutoff);
+    }
+
+    public static Specification<Question> idIn(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return (root, query, cb) -> cb.disjunction();
+        }
+        return (root, query, cb) -> root.get("id").in(ids);
+    }
+
+    public static Specification<Question> containsAllKeywords(List<String> keywords) {
+        return Specification.allOf(keywords.stream().map(QuestionSpecifications::containsKeyword).toList());
+    }
+
+    // Case-insensitive substring match on title or body; tags are handled by the tag filters.
+    public static Specification<Question> containsKeyword(String keyword) {
+        if (keyword == null || keyword.isBlank()) {
+            return (root, query, cb) -> null;
+        }
+        String pattern = "%" + escapeLike(keyword.toLowerCase(Locale.ROOT)) + "%";
+        return (root, query, cb) -> cb.or(
+                cb.like(cb.lower(root.<String>get("title")), pattern, '\\'),
+                cb.like(cb.lower(root.<String>get("body")), pattern, '\\'));
+    }
+
+    // Whole-token match on title or body, as QuestionSearchIndex matches: each phrase is lower-cased tokens that
+    // must appear in order with only non-token characters between them, so "spring" does not match "springboot".
+    public static Specification<Question> containsAllPhrases(List<List<String>> phrases) {
+        return Specification.allOf(phrases.stream().map(QuestionSpecifications::containsPhrase).toList());
+    }
+
+    public static Specification<Question> containsPhrase(List<String> tokens) {
+        String pattern = phrasePattern(tokens);
+        // texticregexeq is the function behind PostgreSQL's case-insensitive ~* operator
+        return (root, query, cb) -> cb.or(
+                cb.isTrue(cb.function("texticregexeq", Boolean.class, root.<String>get("title"), cb.literal(pattern))),
+                cb.isTrue(cb.function("texticregexeq", Boolean.class, root.<String>get("body"), cb.literal(pattern))));
+    }
+
+    // Token characters are letters, digits, '+', '#' and '_' (QuestionSearchIndex.tokenize)
+    private static final String NON_TOKEN = "[^[:alnum:]+#_]";
+
+    static String phrasePattern(List<String> tokens) {
+        StringJoiner pattern = new StringJoiner(NON_TOKEN + "+", "(^|" + NON_TOKEN + ")", "($|" + NON_TOKEN + ")");
+        for (String token : tokens) {
+            // '+' and '#' are the only token characters with a meaning in a regular expression
+            pattern.add(token.replace("+", "\\+").replace("#", "\\#"));
+        }
+        return pattern.toString();
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
+    }
+}
@@ -191,4 +191,6 @@ public interface UserRepository extends JpaRepository<User, Long> {
     @Query("UPDATE User u SET u.profileViewCount = u.profileViewCount + 1 WHERE u.id = :id")
     int incrementProfileViewCount(@Param("id") Long id);
 
+    @Query("SELECT COALESCE(MAX(u.id), 0) FROM User u")
+    long findMaxId();
 }
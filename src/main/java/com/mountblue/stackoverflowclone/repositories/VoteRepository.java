@@ -6,6 +6,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
 import java.util.Optional;
 import java.util.List;
 
@@ -34,4 +35,15 @@ public interface VoteRepository extends JpaRepository<Vote, Long> {
     void deleteByUserIdAndPostIdAndPostType(Long userId, Long postId, String postType);
 
     boolean existsByUserIdAndPostIdAndPostType(Long userId, Long postId, String postType);
+
+    // The user's votes among these questions and answers, as [postType, postId, voteValue]
+    @Query("""
+        SELECT v.postType, v.postId, v.voteValue FROM Vote v
+        WHERE v.user.id = :userId
+          AND ((v.postType = 'question' AND v.postId IN :questionIds)
+               OR (v.postType = 'answer' AND v.postId IN :answerIds))
+    """)
+    List<Object[]> findValuesByUserAmong(@Param("userId") Long userId,
+                                         @Param("questionIds") Collection<Long> questionIds,
+                                         @Param("answerIds") Collection<Long> answerIds);
 }
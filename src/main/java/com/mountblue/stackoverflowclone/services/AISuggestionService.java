@@ -1,111 +1,208 @@
 package com.mountblue.stackoverflowclone.services;
 
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
 import com.mountblue.stackoverflowclone.models.Question;
 import com.mountblue.stackoverflowclone.repositories.QuestionRepository;
-import com.vladsch.flexmark.html.HtmlRenderer;
-import com.vladsch.flexmark.parser.Parser;
+import jakarta.annotation.PreDestroy;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.client.HttpClientErrorException;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
+// AI suggestions run off the request thread on a small bounded pool. Results are cached per question id and
+// updatedAt, so an edit asks again. The cache holds in-flight futures too, so concurrent requests for the
+// same question share one remote call. Failures are reported to the caller but never cached.
 @Service
 public class AISuggestionService {
     private final QuestionRepository questionRepository;
+    private final MarkdownRenderService markdownRenderService;
     private final String geminiApiKey;
-    private final RestTemplate restTemplate = new RestTemplate();
+    private final RestTemplate restTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ThreadPoolExecutor executor;
+    private final AsyncCache<Key, String> suggestions;
+    private final LongAdder rejected = new LongAdder();
 
-    // v1beta + model placeholder
-    private static final String GEMINI_GENERATE_URL =
-            "https://generativelanguage.googleapis.com/v1beta/models/%s:generateContent?key=%s";
+    // v1beta + base URL + model placeholder
+    private static final String GEMINI_GENERATE_URL = "%s/v1beta/models/%s:generateContent?key=%s";
 
     @Value("${gemini.model-id:gemini-2.5-flash-lite}")
     private String modelId;
 
+    @Value("${gemini.base-url:https://generativelanguage.googleapis.com}")
+    private String baseUrl;
+
     public AISuggestionService(QuestionRepository questionRepository,
-                               @Value("${gemini.api-key}") String geminiApiKey) {
+                               MarkdownRenderService markdownRenderService,
+                               @Value("${gemini.api-key}") String geminiApiKey,
+                               RestTemplateBuilder restTemplateBuilder,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${gemini.connect-timeout-ms:3000}") long connectTimeoutMs,
+                               @Value("${gemini.read-timeout-ms:30000}") long readTimeoutMs,
+                               @Value("${app.ai.threads:4}") int threads,
+                               @Value("${app.ai.queue-capacity:32}") int queueCapacity,
+                               @Value("${app.ai.cache.max-entries:1000}") long maxEntries,
+                               @Value("${app.ai.cache.ttl-minutes:1440}") long ttlMinutes) {
         this.questionRepository = questionRepository;
+        this.markdownRenderService = markdownRenderService;
         this.geminiApiKey = geminiApiKey;
+        this.restTemplate = restTemplateBuilder
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .readTimeout(Duration.ofMillis(readTimeoutMs))
+                .build();
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+
+        AtomicInteger threadCount = new AtomicInteger();
+        // A full queue rejects instead of growing: a slow model should not pile up unbounded work
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), r -> {
+            Thread t = new Thread(r, "ai-suggestion-" + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }, new ThreadPoolExecutor.AbortPolicy());
+        this.suggestions = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(Duration.ofMinutes(ttlMinutes))
+                .recordStats()
+                .buildAsync();
     }
 
-    public String getResponse(Long questionId) {
-        Question q = questionRepository.findById(questionId)
-                .orElseThrow(() -> new NoSuchElementException("Question not found"));
+    private record Key(long questionId, LocalDateTime updatedAt) {
+    }
 
-        Parser parser = Parser.builder().build();
-        HtmlRenderer renderer = HtmlRenderer.builder().build();
-        String html = renderer.render(parser.parse(q.getBody() == null ? "" : q.getBody()));
-        String plainText = html.replaceAll("<img[^>]*>", "[image]")
-                .replaceAll("<[^>]+>", "")
-                .replaceAll("&nbsp;", " ")
-                .trim();
+    public record Stats(long size, long hits, long misses, double hitRate, long inFlight, long queued, long rejected) {
+    }
+
+    public CompletableFuture<String> getResponse(Long questionId) {
+        LocalDateTime updatedAt = questionRepository.findUpdatedAtById(questionId)
+                .orElseThrow(() -> new NoSuchElementException("Question not found"));
 
         if (geminiApiKey == null || geminiApiKey.isBlank()) {
-            return "AI suggestions are unavailable (missing API key).";
+            return CompletableFuture.completedFuture("AI suggestions are unavailable (missing API key).");
         }
 
+        CompletableFuture<String> suggestion;
         try {
-            String prompt = buildPrompt(q.getTitle(), plainText);
-            String url = String.format(GEMINI_GENERATE_URL, modelId, geminiApiKey);
-
-            Map<String, Object> generationConfig = Map.of(
-                    "temperature", 0.4,
-                    "maxOutputTokens", 512
-            );
-
-            Map<String, Object> requestBody = Map.of(
-                    "contents", List.of(
-                            Map.of("parts", List.of(Map.of("text", prompt)))
-                    ),
-                    "generationConfig", generationConfig
-            );
-
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-
-            HttpEntity<Map<String, Object>> entity = new HttpEntity<>(requestBody, headers);
-
-            ResponseEntity<Map> response = restTemplate.postForEntity(url, entity, Map.class);
-            Map<String, Object> body = response.getBody();
-            if (body == null) return "No response from AI model.";
-
-            Object candidatesObj = body.get("candidates");
-            if (!(candidatesObj instanceof List<?> candidates) || candidates.isEmpty())
-                return "AI did not return any suggestions.";
-
-            Map<?,?> firstCandidate = (Map<?,?>) candidates.get(0);
-            Map<?,?> content = (Map<?,?>) firstCandidate.get("content");
-            List<?> parts = (List<?>) content.get("parts");
-
-            StringBuilder sb = new StringBuilder();
-            if (parts != null) {
-                for (Object p : parts) {
-                    if (p instanceof Map<?,?> pm && pm.get("text") != null) {
-                        sb.append(pm.get("text"));
-                    }
+            suggestion = suggestions.get(new Key(questionId, updatedAt), (key, cachePool) ->
+                    CompletableFuture.supplyAsync(() -> fetchSuggestion(key.questionId()), executor));
+        } catch (RejectedExecutionException ex) {
+            rejected.increment();
+            suggestion = CompletableFuture.failedFuture(ex);
+        }
+        return suggestion.exceptionally(AISuggestionService::failureMessage);
+    }
+
+    public Stats getStats() {
+        CacheStats stats = suggestions.synchronous().stats();
+        return new Stats(suggestions.synchronous().estimatedSize(), stats.hitCount(), stats.missCount(),
+                stats.hitRate(), executor.getActiveCount(), executor.getQueue().size(), rejected.sum());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    // Runs on the pool; throws on any failure so that nothing but a real suggestion is cached
+    private String fetchSuggestion(long questionId) {
+        String prompt = readOnlyTransaction.execute(status -> {
+            Question q = questionRepository.findById(questionId)
+                    .orElseThrow(() -> new NoSuchElementException("Question not found"));
+            String html = markdownRenderService.questionHtml(q);
+            String plainText = html.replaceAll("<img[^>]*>", "[image]")
+                    .replaceAll("<[^>]+>", "")
+                    .replaceAll("&nbsp;", " ")
+                    .trim();
+            return buildPrompt(q.getTitle(), plainText);
+        });
+
+        String url = String.format(GEMINI_GENERATE_URL, baseUrl, modelId, geminiApiKey);
+
+        Map<String, Object> generationConfig = Map.of(
+                "temperature", 0.4,
+                "maxOutputTokens", 512
+        );
+
+        Map<String, Object> requestBody = Map.of(
+                "contents", List.of(
+                        Map.of("parts", List.of(Map.of("text", prompt)))
+                ),
+                "generationConfig", generationConfig
+        );
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+
+        HttpEntity<Map<String, Object>> entity = new HttpEntity<>(requestBody, headers);
+
+        ResponseEntity<Map> response = restTemplate.postForEntity(url, entity, Map.class);
+        Map<String, Object> body = response.getBody();
+        if (body == null) throw new SuggestionUnavailableException("No response from AI model.");
+
+        Object candidatesObj = body.get("candidates");
+        if (!(candidatesObj instanceof List<?> candidates) || candidates.isEmpty())
+            throw new SuggestionUnavailableException("AI did not return any suggestions.");
+
+        Map<?,?> firstCandidate = (Map<?,?>) candidates.get(0);
+        Map<?,?> content = (Map<?,?>) firstCandidate.get("content");
+        List<?> parts = (List<?>) content.get("parts");
+
+        StringBuilder sb = new StringBuilder();
+        if (parts != null) {
+            for (Object p : parts) {
+                if (p instanceof Map<?,?> pm && pm.get("text") != null) {
+                    sb.append(pm.get("text"));
                 }
             }
-            String out = sb.toString().trim();
-            if (out.isEmpty()) return "AI returned an empty response.";
-            // Convert AI Markdown to HTML so UI can render like question content
-            String aiHtml = renderer.render(parser.parse(out));
-            return aiHtml;
-        } catch (HttpClientErrorException.TooManyRequests ex) {
-            String retryAfter = ex.getResponseHeaders() != null ? ex.getResponseHeaders().getFirst("Retry-After") : null;
+        }
+        String out = sb.toString().trim();
+        if (out.isEmpty()) throw new SuggestionUnavailableException("AI returned an empty response.");
+        // Convert AI Markdown to HTML so UI can render like question content
+        return markdownRenderService.render(out);
+    }
+
+    private static String failureMessage(Throwable failure) {
+        Throwable ex = failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+        if (ex instanceof SuggestionUnavailableException) {
+            return ex.getMessage();
+        }
+        if (ex instanceof RejectedExecutionException) {
+            return "AI suggestions are busy right now. Please try again shortly.";
+        }
+        if (ex instanceof HttpClientErrorException.TooManyRequests tooMany) {
+            String retryAfter = tooMany.getResponseHeaders() != null ? tooMany.getResponseHeaders().getFirst("Retry-After") : null;
             if (retryAfter != null && retryAfter.isBlank()) retryAfter = null;
             return "AI rate limit exceeded. Please try again" + (retryAfter != null ? " after " + retryAfter + " seconds." : ".");
-        } catch (HttpClientErrorException ex) {
-            return "AI request failed: " + ex.getStatusCode().value() + " " + ex.getStatusText();
-        } catch (Exception ex) {
-            return "Failed to get AI suggestion: " + ex.getMessage();
+        }
+        if (ex instanceof HttpClientErrorException httpError) {
+            return "AI request failed: " + httpError.getStatusCode().value() + " " + httpError.getStatusText();
+        }
+        return "Failed to get AI suggestion: " + ex.getMessage();
+    }
+
+    // An answer from the model that should be shown to the user, but not cached
+    private static class SuggestionUnavailableException extends RuntimeException {
+        SuggestionUnavailableException(String message) {
+            super(message);
         }
     }
 
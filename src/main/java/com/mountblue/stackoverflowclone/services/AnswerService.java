@@ -5,13 +5,13 @@ import com.mountblue.stackoverflowclone.models.*;
 import com.mountblue.stackoverflowclone.repositories.AnswerRepository;
 import com.mountblue.stackoverflowclone.repositories.QuestionRepository;
 import com.mountblue.stackoverflowclone.repositories.UserRepository;
-import com.mountblue.stackoverflowclone.repositories.VoteRepository;
 import org.springframework.security.access.AccessDeniedException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Optional;
@@ -22,20 +22,34 @@ public class AnswerService {
     private final AnswerRepository answerRepository;
     private final UserRepository userRepository;
     private final QuestionRepository questionRepository;
-    private final VoteRepository voteRepository;
+    private final VoteService voteService;
     private final FollowService followService;
-
+    private final SearchResultCache searchResultCache;
+    private final MarkdownRenderService markdownRenderService;
+    private final ContentVersionService contentVersionService;
+    private final ListingWatermarkService listingWatermarkService;
+    private final ReputationService reputationService;
 
     public AnswerService(AnswerRepository answerRepository,
                          UserRepository userRepository,
                          QuestionRepository questionRepository,
-                         VoteRepository voteRepository,
-                         FollowService followService){
+                         VoteService voteService,
+                         FollowService followService,
+                         SearchResultCache searchResultCache,
+                         MarkdownRenderService markdownRenderService,
+                         ContentVersionService contentVersionService,
+                         ListingWatermarkService listingWatermarkService,
+                         ReputationService reputationService){
         this.answerRepository = answerRepository;
         this.userRepository = userRepository;
         this.questionRepository = questionRepository;
-        this.voteRepository = voteRepository;
+        this.voteService = voteService;
         this.followService = followService;
+        this.searchResultCache = searchResultCache;
+        this.markdownRenderService = markdownRenderService;
+        this.contentVersionService = contentVersionService;
+        this.listingWatermarkService = listingWatermarkService;
+        this.reputationService = reputationService;
     }
 
     @Transactional
@@ -52,12 +66,17 @@ public class AnswerService {
 
         Answer answer = new Answer();
         answer.setBody(answerFormDto.body().trim());
+        answer.setBodyHtml(markdownRenderService.render(answer.getBody()));
         answer.setQuestion(question);
         answer.setAuthor(author);
         answer.setScore(0);
         answer.setAccepted(false);
 
         Answer saved = answerRepository.save(answer);
+        questionRepository.refreshAnswerStats(question.getId());
+        searchResultCache.answersChanged(question);
+        listingWatermarkService.questionChanged(SearchResultCache.tagsOf(question));
+        contentVersionService.questionChanged(question.getId());
         // Notify followers asynchronously
         followService.notifyFollowersOfNewAnswer(question, saved);
         return saved;
@@ -78,12 +97,17 @@ public class AnswerService {
 
         Answer answer = new Answer();
         answer.setBody(answerFormDto.body().trim());
+        answer.setBodyHtml(markdownRenderService.render(answer.getBody()));
         answer.setQuestion(question);
         answer.setAuthor(author);
         answer.setScore(0);
         answer.setAccepted(false);
 
         Answer saved = answerRepository.save(answer);
+        questionRepository.refreshAnswerStats(question.getId());
+        searchResultCache.answersChanged(question);
+        listingWatermarkService.questionChanged(SearchResultCache.tagsOf(question));
+        contentVersionService.questionChanged(question.getId());
         followService.notifyFollowersOfNewAnswer(question, saved);
         return saved;
     }
@@ -92,43 +116,12 @@ public class AnswerService {
         return answerRepository.getAnswersByQuestionId(questionId);
     }
 
-    @Transactional
-    public void voteAnswer(Answer answer, String choice, String postType, UserPrincipal principal, Long id){
-        int score = answer.getScore();
-        User user = userRepository.findById(principal.getId()).get();
-        Vote vote = voteRepository.findByUserIdAndPostIdAndPostType(user.getId(), id, postType).isEmpty()
-                ? new Vote()
-                : voteRepository.findByUserIdAndPostIdAndPostType(principal.getId(), id, postType).get();
-        int newVoteValue = choice.equals("upvote") ? 1 : -1;
-        if (vote.getPostId() == null) {
-            // New vote - user hasn't voted before
-            vote.setUser(user);
-            vote.setPostId(id);
-            vote.setPostType(postType);
-            vote.setVoteValue(newVoteValue);
-            score += newVoteValue;
-        } else {
-            // User has voted before - toggle or change vote
-            int oldVoteValue = vote.getVoteValue();
-
-            if (oldVoteValue == newVoteValue) {
-                // Clicking same vote - remove vote
-                voteRepository.delete(vote);
-                score -= oldVoteValue;
-                answer.setScore(score);
-                answerRepository.save(answer);
-                return;
-            } else {
-                // Changing vote (upvote to downvote or vice versa)
-                score -= oldVoteValue;  // Remove old vote
-                score += newVoteValue;  // Add new vote
-                vote.setVoteValue(newVoteValue);
-            }
-        }
-
-        voteRepository.save(vote);
-        answer.setScore(score);
-        answerRepository.save(answer);
+    // Not transactional, see QuestionService.voteQuestion; VoteService also refreshes the answer statistics
+    public void voteAnswer(Answer answer, String choice, UserPrincipal principal, Long id){
+        VoteService.VoteResult result = voteService.voteAnswer(principal.getId(), id, answer.getQuestion().getId(), choice);
+        if (result.scoreDelta() == 0) return;
+        searchResultCache.answersChanged(answer.getQuestion());
+        listingWatermarkService.questionChanged(SearchResultCache.tagsOf(answer.getQuestion()));
     }
 
     @Transactional
@@ -147,6 +140,8 @@ public class AnswerService {
         }
 
         answer.setBody(answerFormDto.body().trim());
+        answer.setBodyHtml(markdownRenderService.render(answer.getBody()));
+        contentVersionService.questionChanged(questionId);
 
         return answerRepository.save(answer);
     }
@@ -168,23 +163,42 @@ public class AnswerService {
             throw new AccessDeniedException("Only the question author can accept an answer");
         }
 
+        long questionAuthorId = question.getAuthor().getId();
+        List<ReputationService.Change> reputation = new ArrayList<>();
         List<Answer> answers = answerRepository.getAnswersByQuestionId(question.getId());
         for (Answer a : answers) {
-            if (a.isAccepted()) {
+            if (a.isAccepted() && !a.getId().equals(answerId)) {
                 a.setAccepted(false);
                 answerRepository.save(a);
+                reputation.addAll(ReputationService.acceptChanges(a.getAuthor().getId(), questionAuthorId, a.getId(), -1));
             }
         }
 
-        answer.setAccepted(true);
-        answerRepository.save(answer);
+        if (!answer.isAccepted()) {
+            answer.setAccepted(true);
+            answerRepository.save(answer);
+            reputation.addAll(ReputationService.acceptChanges(answer.getAuthor().getId(), questionAuthorId, answerId, 1));
+        }
+        reputationService.record(reputation);
+        questionRepository.refreshAnswerStats(question.getId());
+        searchResultCache.answersChanged(question);
+        listingWatermarkService.questionChanged(SearchResultCache.tagsOf(question));
+        contentVersionService.questionChanged(question.getId());
     }
 
     public Optional<Answer> findById(Long answerId) {
         return answerRepository.findById(answerId);
     }
 
+    @Transactional
     public void deleteAnswer(Long answerId) {
+        Optional<Answer> answer = answerRepository.findById(answerId);
         answerRepository.deleteById(answerId);
+        answer.ifPresent(a -> {
+            questionRepository.refreshAnswerStats(a.getQuestion().getId());
+            searchResultCache.answersChanged(a.getQuestion());
+            listingWatermarkService.questionChanged(SearchResultCache.tagsOf(a.getQuestion()));
+            contentVersionService.questionChanged(a.getQuestion().getId());
+        });
     }
 }
@@ -18,10 +18,12 @@ import java.util.Optional;
 public class CommentService {
 
     private final CommentRepository commentRepository;
+    private final ContentVersionService contentVersionService;
 
     @Autowired
-    public CommentService(CommentRepository commentRepository) {
+    public CommentService(CommentRepository commentRepository, ContentVersionService contentVersionService) {
         this.commentRepository = commentRepository;
+        this.contentVersionService = contentVersionService;
     }
 
     // Create a comment for a question
@@ -31,6 +33,7 @@ public class CommentService {
         comment.setQuestion(question);
         comment.setAuthor(user);
         comment.setCreatedAt(LocalDateTime.now());
+        contentVersionService.questionChanged(question.getId());
         return commentRepository.save(comment);
     }
 
@@ -41,6 +44,7 @@ public class CommentService {
         comment.setAnswer(answer);
         comment.setAuthor(user);
         comment.setCreatedAt(LocalDateTime.now());
+        contentVersionService.questionChanged(answer.getQuestion().getId());
         return commentRepository.save(comment);
     }
 
@@ -82,14 +86,15 @@ public class CommentService {
                 .orElseThrow(() -> new RuntimeException("Comment not found with id: " + id));
         comment.setBody(content);
         comment.setUpdatedAt(LocalDateTime.now());
+        contentVersionService.questionChanged(questionIdOf(comment));
         return commentRepository.save(comment);
     }
 
     public void delete(Long id) {
-        if (!commentRepository.existsById(id)) {
-            throw new RuntimeException("Comment not found with id: " + id);
-        }
-        commentRepository.deleteById(id);
+        Comment comment = commentRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Comment not found with id: " + id));
+        contentVersionService.questionChanged(questionIdOf(comment));
+        commentRepository.delete(comment);
     }
 
     public void deleteAllByQuestion(Long questionId) {
@@ -110,6 +115,12 @@ public class CommentService {
         return commentRepository.countByAnswerId(answerId);
     }
 
+    // The question page a comment is shown on
+    private static Long questionIdOf(Comment comment) {
+        if (comment.getQuestion() != null) return comment.getQuestion().getId();
+        return comment.getAnswer() != null ? comment.getAnswer().getQuestion().getId() : null;
+    }
+
     @Transactional(readOnly = true)
     public boolean isCommentOwner(Long commentId, String username) {
         Optional<Comment> comment = commentRepository.findById(commentId);
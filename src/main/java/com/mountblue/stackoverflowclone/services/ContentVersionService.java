@@ -0,0 +1,103 @@
+package com.mountblue.stackoverflowclone.services;
+
+import jakarta.persistence.EntityManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+
+// Content version of a question page, kept in content_version so that every node sees the same one: a counter
+// for the question (text, answers, comments, scores) and one for its author (reputation and avatar next to the
+// question). Writers bump them in their own transaction, so a version commits together with the content it
+// describes; checking a version (ETag / 304) is one indexed lookup.
+@Service
+public class ContentVersionService {
+
+    private static final String QUESTION = "Q";
+    private static final String USER = "U";
+
+    private static final String VERSION_SQL = """
+            SELECT COALESCE(qv.version, 0), COALESCE(uv.version, 0)
+            FROM question q
+            LEFT JOIN content_version qv ON qv.subject_type = 'Q' AND qv.subject_id = q.id
+            LEFT JOIN content_version uv ON uv.subject_type = 'U' AND uv.subject_id = q.author_id
+            WHERE q.id = ?
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManager entityManager;
+
+    public ContentVersionService(JdbcTemplate jdbcTemplate, EntityManager entityManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManager = entityManager;
+    }
+
+    public record Version(long question, long author) {
+    }
+
+    private record Subject(String type, long id) {
+    }
+
+    // null when the question does not exist
+    public Version versionOf(Long questionId) {
+        List<Version> rows = jdbcTemplate.query(VERSION_SQL,
+                (rs, i) -> new Version(rs.getLong(1), rs.getLong(2)), questionId);
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    // Anything shown on the question page changed
+    public void questionChanged(Long questionId) {
+        if (questionId != null) changed(new Subject(QUESTION, questionId));
+    }
+
+    // Reputation or avatar changed; shows on the pages of the user's questions
+    public void usersChanged(Collection<Long> userIds) {
+        userIds.forEach(id -> changed(new Subject(USER, id)));
+    }
+
+    // Collected per transaction and written just before it commits, after the JPA changes are flushed, so the
+    // version rows are always the last locks a writer takes and cannot deadlock it against another writer
+    @SuppressWarnings("unchecked")
+    private void changed(Subject subject) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            bump(List.of(subject));
+            return;
+        }
+        SortedSet<Subject> subjects = (SortedSet<Subject>) TransactionSynchronizationManager.getResource(this);
+        if (subjects == null) {
+            SortedSet<Subject> bound = new TreeSet<>(Comparator.comparing(Subject::type).thenComparingLong(Subject::id));
+            TransactionSynchronizationManager.bindResource(this, bound);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    if (TransactionSynchronizationManager.isActualTransactionActive()) entityManager.flush();
+                    bump(bound);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(ContentVersionService.this);
+                }
+            });
+            subjects = bound;
+        }
+        subjects.add(subject);
+    }
+
+    // One statement for all subjects, in (type, id) order like the other multi-row writers
+    private void bump(Collection<Subject> subjects) {
+        if (subjects.isEmpty()) return;
+        StringJoiner rows = new StringJoiner(", ");
+        List<Object> args = new ArrayList<>(subjects.size() * 2);
+        for (Subject subject : subjects) {
+            rows.add("(?, ?, 1, now(), now())");
+            args.add(subject.type());
+            args.add(subject.id());
+        }
+        jdbcTemplate.update("INSERT INTO content_version (subject_type, subject_id, version, created_at, updated_at) VALUES "
+                + rows + " ON CONFLICT (subject_type, subject_id)"
+                + " DO UPDATE SET version = content_version.version + 1, updated_at = now()", args.toArray());
+    }
+}
@@ -0,0 +1,17 @@
+package com.mountblue.stackoverflowclone.services;
+
+import com.mountblue.stackoverflowclone.repositories.QuestionSpecifications;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+@Component
+@ConditionalOnProperty(name = "app.search.backend", havingValue = "like")
+public class LikeSearchBackend implements QuestionSearchBackend {
+
+    @Override
+    public KeywordMatch match(List<String> keywords) {
+        return KeywordMatch.unranked(QuestionSpecifications.containsAllKeywords(keywords));
+    }
+}
@@ -0,0 +1,111 @@
+package com.mountblue.stackoverflowclone.services;
+
+import com.mountblue.stackoverflowclone.models.SearchQuery;
+import com.mountblue.stackoverflowclone.repositories.QuestionSpecifications;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+
+// "Last change" watermarks for the list and search pages, kept as 'L' rows of content_version so every node
+// sees the same ones: a global counter (subject id 0), and one per tag id that is bumped whenever a question
+// carrying the tag is created, retagged, deleted, voted on or answered. A page that requires tags T can only
+// change through a question tagged with all of T, so the counters of T together are a valid validator for it;
+// pages without required tags use the global one.
+@Service
+public class ListingWatermarkService {
+
+    private static final String LISTING = "L";
+    private static final long GLOBAL = 0;
+
+    private final SearchQueryParser searchQueryParser;
+    private final JdbcTemplate jdbcTemplate;
+
+    public ListingWatermarkService(SearchQueryParser searchQueryParser, JdbcTemplate jdbcTemplate) {
+        this.searchQueryParser = searchQueryParser;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // Empty when the page cannot be validated cheaply: view-count filters change on every page view without
+    // going through the write paths, and daysOld moves with the clock
+    public Optional<Long> watermarkFor(String query, Collection<String> tags, Integer daysOld) {
+        if (daysOld != null && daysOld > 0) return Optional.empty();
+        SearchQuery searchQuery = searchQueryParser.parse(query);
+        if (searchQuery.getNumericFilters().containsKey("views") || searchQuery.getNumericRanges().containsKey("views")) {
+            return Optional.empty();
+        }
+        Set<String> required = new TreeSet<>(QuestionSpecifications.requiredTags(searchQuery));
+        if (tags != null) required.addAll(normalize(tags));
+        if (required.isEmpty()) {
+            Long global = jdbcTemplate.queryForObject(
+                    "SELECT COALESCE(MAX(version), 0) FROM content_version WHERE subject_type = ? AND subject_id = ?",
+                    Long.class, LISTING, GLOBAL);
+            return Optional.of(global == null ? 0 : global);
+        }
+
+        // Every tag row with one of the names, with its counter; a tag created later changes the result too
+        long[] watermark = {required.hashCode()};
+        jdbcTemplate.query("""
+                SELECT t.id, COALESCE(v.version, 0) AS version
+                FROM tags t
+                LEFT JOIN content_version v ON v.subject_type = 'L' AND v.subject_id = t.id
+                WHERE lower(t.name) IN (%s)
+                ORDER BY t.id
+                """.formatted(String.join(", ", Collections.nCopies(required.size(), "?"))), rs -> {
+            watermark[0] = 31 * (31 * watermark[0] + rs.getLong("id")) + rs.getLong("version");
+        }, required.toArray());
+        return Optional.of(watermark[0]);
+    }
+
+    // A question with these tags changed in a way the list shows. Bumped once the transaction has committed, in
+    // one short statement, so the global row is never held locked for the length of a write transaction.
+    public void questionChanged(Collection<String> tags) {
+        Set<String> normalized = normalize(tags);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    bump(normalized);
+                }
+            });
+        } else {
+            bump(normalized);
+        }
+    }
+
+    // A retag changes the pages of both the old and the new tags
+    public void questionChanged(Collection<String> oldTags, Collection<String> newTags) {
+        Set<String> tags = new HashSet<>(normalize(oldTags));
+        tags.addAll(normalize(newTags));
+        questionChanged(tags);
+    }
+
+    // Global row and tag rows in subject id order, like the other multi-row writers
+    private void bump(Set<String> tags) {
+        List<Object> args = new ArrayList<>(tags.size() + 2);
+        args.add(GLOBAL);
+        String tagRows = "";
+        if (!tags.isEmpty()) {
+            tagRows = " UNION SELECT id FROM tags WHERE lower(name) IN ("
+                    + String.join(", ", Collections.nCopies(tags.size(), "?")) + ")";
+            args.addAll(tags);
+        }
+        jdbcTemplate.update("""
+                INSERT INTO content_version (subject_type, subject_id, version, created_at, updated_at)
+                SELECT 'L', s.id, 1, now(), now() FROM (SELECT ?::bigint AS id%s) s ORDER BY s.id
+                ON CONFLICT (subject_type, subject_id)
+                DO UPDATE SET version = content_version.version + 1, updated_at = now()
+                """.formatted(tagRows), args.toArray());
+    }
+
+    private static Set<String> normalize(Collection<String> tagNames) {
+        Set<String> normalized = new HashSet<>();
+        if (tagNames == null) return normalized;
+        for (String name : tagNames) {
+            if (name != null && !name.isBlank()) normalized.add(name.trim().toLowerCase(Locale.ROOT));
+        }
+        return normalized;
+    }
+}
@@ -0,0 +1,102 @@
+package com.mountblue.stackoverflowclone.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.mountblue.stackoverflowclone.models.Answer;
+import com.mountblue.stackoverflowclone.models.Question;
+import com.vladsch.flexmark.html.HtmlRenderer;
+import com.vladsch.flexmark.parser.Parser;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.util.HtmlUtils;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.LongAdder;
+
+// Markdown -> HTML once per revision. The HTML is stored on the post when it is saved (body_html); rows
+// written before that column existed are rendered once and cached under (post, id, updatedAt), so an edit
+// naturally misses the old entry.
+@Service
+public class MarkdownRenderService {
+
+    // flexmark's Parser and HtmlRenderer are immutable once built and safe to share between threads
+    private static final Parser PARSER = Parser.builder().build();
+    private static final HtmlRenderer RENDERER = HtmlRenderer.builder().build();
+    public static final int EXCERPT_LENGTH = 150;
+
+    private final Cache<RenderKey, String> fallback;
+    private final LongAdder storedHits = new LongAdder();
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder renders = new LongAdder();
+
+    public MarkdownRenderService(@Value("${app.markdown.cache.max-entries:5000}") long maxEntries) {
+        this.fallback = Caffeine.newBuilder().maximumSize(maxEntries).build();
+    }
+
+    private record RenderKey(char postType, Long id, LocalDateTime updatedAt) {
+    }
+
+    public record Stats(long storedHits, long cacheHits, long renders, double hitRatio, long cacheSize) {
+    }
+
+    public String render(String markdown) {
+        renders.increment();
+        return RENDERER.render(PARSER.parse(markdown == null ? "" : markdown));
+    }
+
+    public String questionHtml(Question question) {
+        return html('q', question.getId(), question.getUpdatedAt(), question.getBodyHtml(), question.getBody());
+    }
+
+    public String answerHtml(Answer answer) {
+        return html('a', answer.getId(), answer.getUpdatedAt(), answer.getBodyHtml(), answer.getBody());
+    }
+
+    // Plain text of the rendered body with images shown as dots, cut to EXCERPT_LENGTH characters
+    public String excerptOf(String html) {
+        if (html == null) return "";
+        String plainText = HtmlUtils.htmlUnescape(html
+                        .replaceAll("<img[^>]*>", "••• ")
+                        .replaceAll("<[^>]+>", ""))
+                .replaceAll("\\s+", " ")
+                .trim();
+        if (plainText.length() <= EXCERPT_LENGTH) {
+            return plainText;
+        }
+        return plainText.substring(0, EXCERPT_LENGTH).trim() + "...";
+    }
+
+    // List-page snippet; only rows saved before the excerpt column existed (and not yet backfilled) touch the body
+    public String excerptHtml(Question question) {
+        String excerpt = question.getExcerpt() != null ? question.getExcerpt() : excerptOf(questionHtml(question));
+        return "<p>" + HtmlUtils.htmlEscape(excerpt) + "</p>";
+    }
+
+    public Stats getStats() {
+        long stored = storedHits.sum();
+        long cached = cacheHits.sum();
+        long rendered = renders.sum();
+        long total = stored + cached + rendered;
+        return new Stats(stored, cached, rendered, total == 0 ? 0.0 : (double) (stored + cached) / total,
+                fallback.estimatedSize());
+    }
+
+    private String html(char postType, Long id, LocalDateTime updatedAt, String storedHtml, String markdown) {
+        if (storedHtml != null) {
+            storedHits.increment();
+            return storedHtml;
+        }
+        if (id == null) {
+            return render(markdown);
+        }
+        RenderKey key = new RenderKey(postType, id, updatedAt);
+        String cached = fallback.getIfPresent(key);
+        if (cached != null) {
+            cacheHits.increment();
+            return cached;
+        }
+        String html = render(markdown);
+        fallback.put(key, html);
+        return html;
+    }
+}
@@ -0,0 +1,97 @@
+package com.mountblue.stackoverflowclone.services;
+
+import com.mountblue.stackoverflowclone.repositories.QuestionSpecifications;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+// Keeps a generated, weighted tsvector column (title = A, body = B) with a GIN index on the question
+// table and answers keyword searches with plainto_tsquery / phraseto_tsquery ranked by ts_rank.
+@Component
+@ConditionalOnProperty(name = "app.search.backend", havingValue = "postgres")
+public class PostgresSearchBackend implements QuestionSearchBackend {
+
+    private static final Logger logger = LoggerFactory.getLogger(PostgresSearchBackend.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final String textSearchConfig;
+    private final int maxResults;
+    private volatile boolean ready = false;
+
+    public PostgresSearchBackend(JdbcTemplate jdbcTemplate,
+                                 NamedParameterJdbcTemplate namedParameterJdbcTemplate,
+                                 @Value("${app.search.postgres.config:english}") String textSearchConfig,
+                                 @Value("${app.search.postgres.max-results:10000}") int maxResults) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedParameterJdbcTemplate = namedParameterJdbcTemplate;
+        if (!textSearchConfig.matches("[a-z_]+")) {
+            throw new IllegalStateException("Property 'app.search.postgres.config' must be a text search configuration name");
+        }
+        this.textSearchConfig = textSearchConfig;
+        this.maxResults = maxResults;
+    }
+
+    // Runs after Hibernate's schema update so the question table exists on a fresh database
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureSchema() {
+        jdbcTemplate.execute("""
+                ALTER TABLE question ADD COLUMN IF NOT EXISTS search_vector tsvector
+                GENERATED ALWAYS AS (
+                    setweight(to_tsvector('%1$s', coalesce(title, '')), 'A') ||
+                    setweight(to_tsvector('%1$s', coalesce(body, '')), 'B')
+                ) STORED
+                """.formatted(textSearchConfig));
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_question_search_vector ON question USING GIN (search_vector)");
+        ready = true;
+        logger.info("PostgreSQL full-text search ready (config={})", textSearchConfig);
+    }
+
+    @Override
+    public KeywordMatch match(List<String> keywords) {
+        List<String> phrases = keywords.stream()
+                .filter(k -> k != null && !k.isBlank())
+                .map(String::trim)
+                .toList();
+        if (phrases.isEmpty()) {
+            return KeywordMatch.unranked(Specification.allOf());
+        }
+        if (!ready) {
+            return KeywordMatch.unranked(QuestionSpecifications.containsAllKeywords(phrases));
+        }
+
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("config", textSearchConfig)
+                .addValue("limit", maxResults);
+        StringBuilder tsQuery = new StringBuilder();
+        for (int i = 0; i < phrases.size(); i++) {
+            String phrase = phrases.get(i);
+            if (i > 0) tsQuery.append(" && ");
+            // single words go through plainto_tsquery, multi-word quotes must match as a phrase
+            String function = phrase.contains(" ") ? "phraseto_tsquery" : "plainto_tsquery";
+            tsQuery.append(function).append("(CAST(:config AS regconfig), :k").append(i).append(")");
+            params.addValue("k" + i, phrase);
+        }
+
+        String sql = """
+                WITH query AS (SELECT %s AS tsq)
+                SELECT q.id
+                FROM question q, query
+                WHERE q.search_vector @@ query.tsq
+                ORDER BY ts_rank(q.search_vector, query.tsq) DESC, q.id DESC
+                LIMIT :limit
+                """.formatted(tsQuery);
+        List<Long> rankedIds = namedParameterJdbcTemplate.queryForList(sql, params, Long.class);
+        return new KeywordMatch(QuestionSpecifications.idIn(rankedIds), rankedIds);
+    }
+}
@@ -0,0 +1,184 @@
+package com.mountblue.stackoverflowclone.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mountblue.stackoverflowclone.models.Question;
+import com.mountblue.stackoverflowclone.models.SortType;
+import com.mountblue.stackoverflowclone.models.Tag;
+import com.mountblue.stackoverflowclone.repositories.QuestionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Locale;
+
+// Streams every question matching the list filters as CSV or NDJSON. Rows go from a forward-only JDBC cursor
+// straight to the response, so memory does not grow with the result size.
+@Service
+public class QuestionExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(QuestionExportService.class);
+    private static final int FETCH_SIZE = 500;
+    // Detach loaded rows and push buffered output to the client every this many rows
+    private static final int CLEAR_EVERY = 500;
+
+    private final QuestionRepository questionRepository;
+    private final TagBitmapIndex tagBitmapIndex;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ViewCountBuffer viewCountBuffer;
+
+    public QuestionExportService(QuestionRepository questionRepository,
+                                 TagBitmapIndex tagBitmapIndex,
+                                 ObjectMapper objectMapper,
+                                 PlatformTransactionManager transactionManager,
+                                 ViewCountBuffer viewCountBuffer) {
+        this.questionRepository = questionRepository;
+        this.tagBitmapIndex = tagBitmapIndex;
+        this.objectMapper = objectMapper;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.viewCountBuffer = viewCountBuffer;
+    }
+
+    public enum Format {
+        CSV("csv", new MediaType("text", "csv", StandardCharsets.UTF_8)),
+        NDJSON("ndjson", MediaType.APPLICATION_NDJSON);
+
+        private final String extension;
+        private final MediaType mediaType;
+
+        Format(String extension, MediaType mediaType) {
+            this.extension = extension;
+            this.mediaType = mediaType;
+        }
+
+        public String extension() {
+            return extension;
+        }
+
+        public MediaType mediaType() {
+            return mediaType;
+        }
+
+        public static Format fromParam(String param) {
+            if (param == null) return CSV;
+            return switch (param.trim().toLowerCase(Locale.ROOT)) {
+                case "ndjson", "json", "jsonl" -> NDJSON;
+                default -> CSV;
+            };
+        }
+    }
+
+    public record ExportRow(Long id,
+                            String title,
+                            Long authorId,
+                            String authorName,
+                            LocalDateTime createdAt,
+                            int score,
+                            Long viewCount,
+                            int answerCount,
+                            boolean accepted,
+                            List<String> tags) {
+    }
+
+    private static final String CSV_HEADER =
+            "id,title,author_id,author_name,created_at,score,view_count,answer_count,accepted,tags";
+
+    public void export(Specification<Question> filters, SortType sortType, Format format, OutputStream out) {
+        long started = System.currentTimeMillis();
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        Long rows = readOnlyTransaction.execute(status -> {
+            try {
+                if (format == Format.CSV) {
+                    writer.write(CSV_HEADER);
+                    writer.write('\n');
+                }
+                long[] written = {0};
+                long count = questionRepository.forEach(filters, sortType, FETCH_SIZE, CLEAR_EVERY, question -> {
+                    try {
+                        writeRow(toRow(question), format, writer);
+                        if (++written[0] % CLEAR_EVERY == 0) writer.flush();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                writer.flush();
+                return count;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        logger.info("Exported {} questions as {} in {} ms", rows, format, System.currentTimeMillis() - started);
+    }
+
+    private ExportRow toRow(Question question) {
+        // Tag names come from the bitmap index; the lazy collection is only touched while it is still building
+        List<String> tags = tagBitmapIndex.isReady()
+                ? tagBitmapIndex.tagNamesOf(question.getId())
+                : question.getTags().stream().map(Tag::getName).toList();
+        return new ExportRow(
+                question.getId(),
+                question.getTitle(),
+                question.getAuthor().getId(),
+                question.getAuthor().getName(),
+                question.getCreatedAt(),
+                question.getScore(),
+                viewCountBuffer.viewsOf(question),
+                question.getAnswerCount(),
+                question.getAcceptedAnswerId() != null,
+                tags
+        );
+    }
+
+    private void writeRow(ExportRow row, Format format, Writer writer) throws IOException {
+        if (format == Format.NDJSON) {
+            writer.write(objectMapper.writeValueAsString(row));
+            writer.write('\n');
+            return;
+        }
+        writer.write(String.valueOf(row.id()));
+        writer.write(',');
+        writeCsvField(row.title(), writer);
+        writer.write(',');
+        writer.write(String.valueOf(row.authorId()));
+        writer.write(',');
+        writeCsvField(row.authorName(), writer);
+        writer.write(',');
+        writer.write(row.createdAt() == null ? "" : row.createdAt().toString());
+        writer.write(',');
+        writer.write(String.valueOf(row.score()));
+        writer.write(',');
+        writer.write(String.valueOf(row.viewCount()));
+        writer.write(',');
+        writer.write(String.valueOf(row.answerCount()));
+        writer.write(',');
+        writer.write(String.valueOf(row.accepted()));
+        writer.write(',');
+        writeCsvField(String.join(" ", row.tags()), writer);
+        writer.write('\n');
+    }
+
+    // RFC 4180 quoting; a leading formula character is prefixed with ' so spreadsheets show it as text
+    private static void writeCsvField(String value, Writer writer) throws IOException {
+        if (value == null || value.isEmpty()) return;
+        boolean formula = "=+-@".indexOf(value.charAt(0)) >= 0;
+        boolean quote = formula || value.indexOf(',') >= 0 || value.indexOf('"') >= 0
+                || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0;
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        if (formula) writer.write('\'');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
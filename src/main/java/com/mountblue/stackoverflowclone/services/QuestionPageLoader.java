@@ -0,0 +1,164 @@
+package com.mountblue.stackoverflowclone.services;
+
+import com.mountblue.stackoverflowclone.models.*;
+import com.mountblue.stackoverflowclone.repositories.AnswerRepository;
+import com.mountblue.stackoverflowclone.repositories.CommentRepository;
+import com.mountblue.stackoverflowclone.repositories.QuestionRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+
+// Everything /questions/{id} renders, in a fixed number of statements however many answers and comments
+// there are: question + author + tags, the first chunk of answers + authors, the first few comments of the
+// question and of each of those answers (ids by window query, then the rows + authors), related questions
+// (a single lookup in the precomputed table, plus the rows it names), plus one for the lazy body columns.
+// Later answers and comments are fetched in chunks of the same size through keyset cursors, so the work per
+// request stays bounded on questions with hundreds of answers.
+@Service
+public class QuestionPageLoader {
+
+    private final QuestionRepository questionRepository;
+    private final AnswerRepository answerRepository;
+    private final CommentRepository commentRepository;
+    private final RelatedQuestionService relatedQuestionService;
+    private final int answersPerChunk;
+    private final int commentsPerChunk;
+
+    public QuestionPageLoader(QuestionRepository questionRepository,
+                              AnswerRepository answerRepository,
+                              CommentRepository commentRepository,
+                              RelatedQuestionService relatedQuestionService,
+                              @Value("${app.question-page.answers-per-chunk:30}") int answersPerChunk,
+                              @Value("${app.question-page.comments-per-chunk:5}") int commentsPerChunk) {
+        this.questionRepository = questionRepository;
+        this.answerRepository = answerRepository;
+        this.commentRepository = commentRepository;
+        this.relatedQuestionService = relatedQuestionService;
+        this.answersPerChunk = Math.max(1, answersPerChunk);
+        this.commentsPerChunk = Math.max(1, commentsPerChunk);
+    }
+
+    // remaining is the number of comments after this chunk when known, -1 when only "more" is known
+    public record CommentChunk(List<Comment> comments, String nextCursor, int remaining) {
+
+        static final CommentChunk EMPTY = new CommentChunk(List.of(), null, 0);
+    }
+
+    public record AnswerChunk(List<Answer> answers, Map<Long, CommentChunk> commentsByAnswerId, String nextCursor) {
+
+        public CommentChunk commentsOf(Answer answer) {
+            return commentsByAnswerId.getOrDefault(answer.getId(), CommentChunk.EMPTY);
+        }
+    }
+
+    public record QuestionPage(Question question,
+                               CommentChunk questionComments,
+                               AnswerChunk answers,
+                               List<Question> relatedQuestions) {
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<QuestionPage> load(Long questionId, int relatedLimit) {
+        Optional<Question> found = questionRepository.findByIdWithAuthorAndTags(questionId);
+        if (found.isEmpty()) return Optional.empty();
+        Question question = found.get();
+
+        // Accepted first, then by score; one extra row tells whether there is a next chunk
+        List<Answer> answers = answerRepository.findPageChunk(questionId, PageRequest.of(0, answersPerChunk + 1));
+        PostComments comments = firstComments(questionId, true, idsOf(shown(answers)));
+
+        List<Question> related = relatedQuestionService.relatedTo(question, relatedLimit);
+
+        return Optional.of(new QuestionPage(question, comments.question(),
+                answerChunk(answers, comments.byAnswerId()), related));
+    }
+
+    // For the accept button on answers rendered outside the full page
+    @Transactional(readOnly = true)
+    public String authorEmailOf(Long questionId) {
+        return questionRepository.findAuthorEmailById(questionId).orElse(null);
+    }
+
+    // The answers after the cursor, each with its first comments
+    @Transactional(readOnly = true)
+    public AnswerChunk loadAnswers(Long questionId, AnswerCursor cursor) {
+        List<Answer> answers = answerRepository.findPageChunkAfter(questionId, cursor.accepted(), cursor.score(),
+                cursor.createdAt(), cursor.id(), PageRequest.of(0, answersPerChunk + 1));
+        return answerChunk(answers, firstComments(questionId, false, idsOf(shown(answers))).byAnswerId());
+    }
+
+    // The comments after the cursor on the question (answerId null) or on one of its answers
+    @Transactional(readOnly = true)
+    public CommentChunk loadComments(Long questionId, Long answerId, CommentCursor cursor) {
+        PageRequest limit = PageRequest.of(0, commentsPerChunk + 1);
+        List<Comment> comments = answerId == null
+                ? commentRepository.findOnQuestionAfter(questionId, cursor.createdAt(), cursor.id(), limit)
+                : commentRepository.findOnAnswerAfter(answerId, cursor.createdAt(), cursor.id(), limit);
+        if (comments.size() <= commentsPerChunk) return new CommentChunk(comments, null, 0);
+        List<Comment> shown = comments.subList(0, commentsPerChunk);
+        return new CommentChunk(shown, CommentCursor.after(shown.get(shown.size() - 1)).encode(), -1);
+    }
+
+    private AnswerChunk answerChunk(List<Answer> answers, Map<Long, CommentChunk> comments) {
+        if (answers.size() <= answersPerChunk) return new AnswerChunk(answers, comments, null);
+        List<Answer> shown = shown(answers);
+        return new AnswerChunk(shown, comments, AnswerCursor.after(shown.get(shown.size() - 1)).encode());
+    }
+
+    // Without the lookahead row, which only tells whether there is a next chunk
+    private List<Answer> shown(List<Answer> answers) {
+        return answers.size() <= answersPerChunk ? answers : answers.subList(0, answersPerChunk);
+    }
+
+    private record PostComments(CommentChunk question, Map<Long, CommentChunk> byAnswerId) {
+    }
+
+    // First comments of the question (when asked for) and of each answer
+    private PostComments firstComments(Long questionId, boolean withQuestion, List<Long> answerIds) {
+        PostComments none = new PostComments(CommentChunk.EMPTY, Map.of());
+        if (!withQuestion && answerIds.isEmpty()) return none;
+        // IN () is not valid SQL, and no answer has id 0
+        List<Object[]> heads = commentRepository.findFirstPerPost(questionId, withQuestion,
+                answerIds.isEmpty() ? List.of(0L) : answerIds, commentsPerChunk);
+        if (heads.isEmpty()) return none;
+
+        // Keyed by answer id, null for the question's own comments
+        Map<Long, Long> totals = new HashMap<>();
+        List<Long> ids = new ArrayList<>(heads.size());
+        for (Object[] head : heads) {
+            ids.add(((Number) head[0]).longValue());
+            totals.put(head[1] == null ? null : ((Number) head[1]).longValue(), ((Number) head[2]).longValue());
+        }
+
+        Map<Long, List<Comment>> byPost = new HashMap<>();
+        for (Comment comment : commentRepository.findAllWithAuthorByIdIn(ids)) {
+            // getId() on the lazy answer reference reads the foreign key without initializing it
+            Long postKey = comment.getAnswer() != null ? comment.getAnswer().getId() : null;
+            byPost.computeIfAbsent(postKey, k -> new ArrayList<>()).add(comment);
+        }
+
+        CommentChunk questionChunk = CommentChunk.EMPTY;
+        Map<Long, CommentChunk> byAnswerId = new HashMap<>();
+        for (Map.Entry<Long, List<Comment>> post : byPost.entrySet()) {
+            List<Comment> comments = post.getValue();
+            int remaining = (int) (totals.getOrDefault(post.getKey(), 0L) - comments.size());
+            String next = remaining > 0 ? CommentCursor.after(comments.get(comments.size() - 1)).encode() : null;
+            CommentChunk chunk = new CommentChunk(comments, next, Math.max(0, remaining));
+            if (post.getKey() == null) {
+                questionChunk = chunk;
+            } else {
+                byAnswerId.put(post.getKey(), chunk);
+            }
+        }
+        return new PostComments(questionChunk, byAnswerId);
+    }
+
+    private static List<Long> idsOf(List<Answer> answers) {
+        List<Long> ids = new ArrayList<>(answers.size());
+        for (Answer answer : answers) ids.add(answer.getId());
+        return ids;
+    }
+}
@@ -0,0 +1,30 @@
+package com.mountblue.stackoverflowclone.services;
+
+import com.mountblue.stackoverflowclone.models.Question;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+// Resolves the keyword part of a search. Selected with app.search.backend = like | index | postgres.
+public interface QuestionSearchBackend {
+
+    KeywordMatch match(List<String> keywords);
+
+    default void index(Question question) {
+    }
+
+    default void remove(Long questionId) {
+    }
+
+    // filter restricts the question query; rankedIds is best-first when the backend ranks, empty otherwise
+    record KeywordMatch(Specification<Question> filter, List<Long> rankedIds) {
+
+        public static KeywordMatch unranked(Specification<Question> filter) {
+            return new KeywordMatch(filter, List.of());
+        }
+
+        public boolean isRanked() {
+            return !rankedIds.isEmpty();
+        }
+    }
+}
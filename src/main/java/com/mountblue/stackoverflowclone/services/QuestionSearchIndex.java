@@ -0,0 +1,328 @@
+package com.mountblue.stackoverflowclone.services;
+
+import com.mountblue.stackoverflowclone.models.Question;
+import com.mountblue.stackoverflowclone.repositories.QuestionRepository;
+import com.mountblue.stackoverflowclone.repositories.QuestionSpecifications;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Positional inverted index over question title + body, used to resolve quoted keyword phrases
+// without scanning TEXT bodies with LIKE '%..%'. Like TagBitmapIndex, writes are applied after their
+// transaction commits, and a rebuild fills fresh maps while the old ones keep serving, then swaps them in and
+// replays the writes that arrived meanwhile.
+@Component
+@ConditionalOnProperty(name = "app.search.backend", havingValue = "index", matchIfMissing = true)
+public class QuestionSearchIndex implements QuestionSearchBackend {
+
+    private static final Logger logger = LoggerFactory.getLogger(QuestionSearchIndex.class);
+    private static final int BUILD_BATCH_SIZE = 500;
+    // Gap between title and body positions so a phrase never matches across the two fields
+    private static final int FIELD_GAP = 16;
+    // Above this many hits an IN (...) list costs more than the LIKE scan it replaces
+    private static final int MAX_ID_FILTER_SIZE = 10_000;
+
+    private final QuestionRepository questionRepository;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // term -> (questionId -> sorted positions)
+    private final Map<String, Map<Long, int[]>> postings = new HashMap<>();
+    // questionId -> distinct terms, so a question can be removed without re-tokenizing it
+    private final Map<Long, Set<String>> termsByQuestion = new HashMap<>();
+    // Non-null while a rebuild runs: the writes to apply again once its maps are swapped in
+    private List<Update> replayAfterRebuild;
+    private volatile boolean ready = false;
+
+    public QuestionSearchIndex(QuestionRepository questionRepository) {
+        this.questionRepository = questionRepository;
+    }
+
+    public record Stats(int questions, int terms, long postings, long positions, long estimatedBytes) {
+    }
+
+    // term -> sorted positions for one question, or null when the question was deleted
+    private record Update(Long questionId, Map<String, int[]> positions) {
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long started = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try {
+            replayAfterRebuild = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        try {
+            Map<String, Map<Long, int[]>> builtPostings = new HashMap<>();
+            Map<Long, Set<String>> builtTerms = new HashMap<>();
+            long afterId = 0;
+            List<Object[]> batch;
+            do {
+                batch = questionRepository.findTextAfter(afterId, PageRequest.of(0, BUILD_BATCH_SIZE));
+                for (Object[] row : batch) {
+                    afterId = (Long) row[0];
+                    put(builtPostings, builtTerms, afterId, positionsOf((String) row[1], (String) row[2]));
+                }
+            } while (batch.size() == BUILD_BATCH_SIZE);
+
+            lock.writeLock().lock();
+            try {
+                postings.clear();
+                postings.putAll(builtPostings);
+                termsByQuestion.clear();
+                termsByQuestion.putAll(builtTerms);
+                // Each update carries the question's full text, so replaying one the build already saw is harmless
+                replayAfterRebuild.forEach(this::applyLocked);
+                ready = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } finally {
+            lock.writeLock().lock();
+            try {
+                replayAfterRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        Stats stats = getStats();
+        logger.info("Question search index built in {} ms: {} questions, {} terms, {} postings, ~{} KB",
+                System.currentTimeMillis() - started, stats.questions(), stats.terms(), stats.postings(),
+                stats.estimatedBytes() / 1024);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    // Keywords match whole tokens whichever way they are resolved: from the index, or, while it is building or
+    // when a phrase has too many hits, with the equivalent regular expression in the database. A keyword with no
+    // token at all (e.g. "?") can only be matched as a substring.
+    @Override
+    public KeywordMatch match(List<String> keywords) {
+        if (keywords.isEmpty()) {
+            return KeywordMatch.unranked(Specification.allOf());
+        }
+        List<List<String>> phrases = new ArrayList<>();
+        List<String> untokenized = new ArrayList<>();
+        for (String keyword : keywords) {
+            List<String> tokens = tokenize(keyword);
+            if (tokens.isEmpty()) {
+                untokenized.add(keyword);
+            } else {
+                phrases.add(tokens);
+            }
+        }
+        Specification<Question> substrings = QuestionSpecifications.containsAllKeywords(untokenized);
+        if (phrases.isEmpty()) {
+            return KeywordMatch.unranked(substrings);
+        }
+        if (ready) {
+            Set<Long> ids = matchAllTokens(phrases);
+            if (ids.size() <= MAX_ID_FILTER_SIZE) {
+                return KeywordMatch.unranked(QuestionSpecifications.idIn(ids).and(substrings));
+            }
+        }
+        return KeywordMatch.unranked(QuestionSpecifications.containsAllPhrases(phrases).and(substrings));
+    }
+
+    // Tokenizes now, inside the caller's transaction, and applies the result once it commits
+    @Override
+    public void index(Question question) {
+        if (question == null || question.getId() == null) return;
+        afterCommit(new Update(question.getId(), positionsOf(question.getTitle(), question.getBody())));
+    }
+
+    @Override
+    public void remove(Long questionId) {
+        afterCommit(new Update(questionId, null));
+    }
+
+    // Ids of questions containing every phrase; each phrase is a non-empty list of tokens
+    private Set<Long> matchAllTokens(List<List<String>> phrases) {
+        lock.readLock().lock();
+        try {
+            Set<Long> result = null;
+            for (List<String> tokens : phrases) {
+                Set<Long> matches = matchPhrase(tokens);
+                if (result == null) {
+                    result = matches;
+                } else {
+                    result.retainAll(matches);
+                }
+                if (result.isEmpty()) break;
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Stats getStats() {
+        lock.readLock().lock();
+        try {
+            long postingCount = 0;
+            long positionCount = 0;
+            long bytes = 0;
+            for (Map.Entry<String, Map<Long, int[]>> entry : postings.entrySet()) {
+                // String + HashMap.Node + inner map header
+                bytes += 40L + 2L * entry.getKey().length() + 32 + 64;
+                for (int[] positions : entry.getValue().values()) {
+                    postingCount++;
+                    positionCount += positions.length;
+                    // HashMap.Node + boxed Long + int[] header + payload
+                    bytes += 32 + 16 + 16 + 4L * positions.length;
+                }
+            }
+            for (Set<String> terms : termsByQuestion.values()) {
+                bytes += 32 + 16 + 64 + 32L * terms.size();
+            }
+            return new Stats(termsByQuestion.size(), postings.size(), postingCount, positionCount, bytes);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Lower-cased runs of letters/digits; '+', '#' and '_' stay inside tokens so c++, c# and snake_case survive.
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) return tokens;
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean tokenChar = i < text.length() && isTokenChar(text.charAt(i));
+            if (tokenChar && start < 0) {
+                start = i;
+            } else if (!tokenChar && start >= 0) {
+                tokens.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    private static boolean isTokenChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '+' || c == '#' || c == '_';
+    }
+
+    private Map<String, int[]> positionsOf(String title, String body) {
+        Map<String, List<Integer>> positions = new HashMap<>();
+        int next = collectPositions(title, 0, positions);
+        collectPositions(body, next + FIELD_GAP, positions);
+
+        Map<String, int[]> sorted = new HashMap<>();
+        for (Map.Entry<String, List<Integer>> entry : positions.entrySet()) {
+            List<Integer> list = entry.getValue();
+            int[] array = new int[list.size()];
+            for (int i = 0; i < array.length; i++) array[i] = list.get(i);
+            sorted.put(entry.getKey(), array);
+        }
+        return sorted;
+    }
+
+    private int collectPositions(String text, int offset, Map<String, List<Integer>> positions) {
+        List<String> tokens = tokenize(text);
+        for (int i = 0; i < tokens.size(); i++) {
+            positions.computeIfAbsent(tokens.get(i), k -> new ArrayList<>()).add(offset + i);
+        }
+        return offset + tokens.size();
+    }
+
+    private Set<Long> matchPhrase(List<String> tokens) {
+        List<Map<Long, int[]>> lists = new ArrayList<>(tokens.size());
+        Map<Long, int[]> rarest = null;
+        for (String token : tokens) {
+            Map<Long, int[]> list = postings.get(token);
+            if (list == null) return new HashSet<>();
+            lists.add(list);
+            if (rarest == null || list.size() < rarest.size()) rarest = list;
+        }
+
+        Set<Long> matches = new HashSet<>();
+        for (Long questionId : rarest.keySet()) {
+            if (tokens.size() == 1 || containsPhrase(questionId, lists)) {
+                matches.add(questionId);
+            }
+        }
+        return matches;
+    }
+
+    private boolean containsPhrase(Long questionId, List<Map<Long, int[]>> lists) {
+        int[][] positions = new int[lists.size()][];
+        for (int i = 0; i < lists.size(); i++) {
+            positions[i] = lists.get(i).get(questionId);
+            if (positions[i] == null) return false;
+        }
+        for (int start : positions[0]) {
+            boolean all = true;
+            for (int i = 1; i < positions.length && all; i++) {
+                all = Arrays.binarySearch(positions[i], start + i) >= 0;
+            }
+            if (all) return true;
+        }
+        return false;
+    }
+
+    private void afterCommit(Update update) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(update);
+                }
+            });
+        } else {
+            apply(update);
+        }
+    }
+
+    private void apply(Update update) {
+        lock.writeLock().lock();
+        try {
+            applyLocked(update);
+            if (replayAfterRebuild != null) replayAfterRebuild.add(update);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void applyLocked(Update update) {
+        if (update.positions() == null) {
+            drop(postings, termsByQuestion, update.questionId());
+        } else {
+            put(postings, termsByQuestion, update.questionId(), update.positions());
+        }
+    }
+
+    private static void put(Map<String, Map<Long, int[]>> postings, Map<Long, Set<String>> termsByQuestion,
+                            Long questionId, Map<String, int[]> positions) {
+        drop(postings, termsByQuestion, questionId);
+        positions.forEach((term, sorted) -> postings.computeIfAbsent(term, k -> new HashMap<>()).put(questionId, sorted));
+        termsByQuestion.put(questionId, new HashSet<>(positions.keySet()));
+    }
+
+    private static void drop(Map<String, Map<Long, int[]>> postings, Map<Long, Set<String>> termsByQuestion,
+                             Long questionId) {
+        Set<String> terms = termsByQuestion.remove(questionId);
+        if (terms == null) return;
+        for (String term : terms) {
+            Map<Long, int[]> list = postings.get(term);
+            if (list == null) continue;
+            list.remove(questionId);
+            if (list.isEmpty()) postings.remove(term);
+        }
+    }
+}
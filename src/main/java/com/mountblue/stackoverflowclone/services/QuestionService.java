@@ -5,17 +5,20 @@ import com.mountblue.stackoverflowclone.dtos.QuestionResponseDto;
 import com.mountblue.stackoverflowclone.dtos.TagResponseDto;
 import com.mountblue.stackoverflowclone.models.*;
 import com.mountblue.stackoverflowclone.repositories.QuestionRepository;
+import com.mountblue.stackoverflowclone.repositories.QuestionSpecifications;
 import com.mountblue.stackoverflowclone.repositories.TagRepository;
 import com.mountblue.stackoverflowclone.repositories.UserRepository;
-import com.mountblue.stackoverflowclone.repositories.VoteRepository;
+import org.roaringbitmap.RoaringBitmap;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.stereotype.Service;
 
-import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -26,18 +29,51 @@ public class QuestionService {
     private final QuestionRepository questionRepository;
     private final TagRepository tagRepository;
     private final SearchQueryParser searchQueryParser;
-    private final VoteRepository voteRepository;
+    private final VoteService voteService;
+    private final QuestionSearchBackend searchBackend;
+    private final TagBitmapIndex tagBitmapIndex;
+    private final SearchResultCache searchResultCache;
+    private final TagSuggestIndex tagSuggestIndex;
+    private final MarkdownRenderService markdownRenderService;
+    private final ViewCountBuffer viewCountBuffer;
+    private final RelatedQuestionService relatedQuestionService;
+    private final ContentVersionService contentVersionService;
+    private final ListingWatermarkService listingWatermarkService;
+    private final ViewerSketchService viewerSketchService;
+
+    // Above this many candidates an IN (...) list costs more than the EXISTS subqueries it replaces
+    private static final int MAX_TAG_ID_FILTER_SIZE = 10_000;
 
     public QuestionService(QuestionRepository questionRepository,
                            UserRepository userRepository,
                            TagRepository tagRepository,
                            SearchQueryParser searchQueryParser,
-                           VoteRepository voteRepository) {
+                           VoteService voteService,
+                           QuestionSearchBackend searchBackend,
+                           TagBitmapIndex tagBitmapIndex,
+                           SearchResultCache searchResultCache,
+                           TagSuggestIndex tagSuggestIndex,
+                           MarkdownRenderService markdownRenderService,
+                           ViewCountBuffer viewCountBuffer,
+                           RelatedQuestionService relatedQuestionService,
+                           ContentVersionService contentVersionService,
+                           ListingWatermarkService listingWatermarkService,
+                           ViewerSketchService viewerSketchService) {
         this.userRepository = userRepository;
         this.questionRepository = questionRepository;
         this.tagRepository = tagRepository;
         this.searchQueryParser = searchQueryParser;
-        this.voteRepository=voteRepository;
+        this.voteService = voteService;
+        this.searchBackend = searchBackend;
+        this.tagBitmapIndex = tagBitmapIndex;
+        this.searchResultCache = searchResultCache;
+        this.tagSuggestIndex = tagSuggestIndex;
+        this.markdownRenderService = markdownRenderService;
+        this.viewCountBuffer = viewCountBuffer;
+        this.relatedQuestionService = relatedQuestionService;
+        this.contentVersionService = contentVersionService;
+        this.listingWatermarkService = listingWatermarkService;
+        this.viewerSketchService = viewerSketchService;
     }
 
     @Transactional
@@ -45,36 +81,69 @@ public class QuestionService {
         Question question = new Question();
         question.setTitle(questionFormDto.title());
         question.setBody(questionFormDto.body());
+        question.setBodyHtml(markdownRenderService.render(questionFormDto.body()));
+        question.setExcerpt(markdownRenderService.excerptOf(question.getBodyHtml()));
         question.setTags(extractTags(questionFormDto.tags()));
         Long authorId = questionFormDto.authorId() != null && questionFormDto.authorId() > 0
                 ? questionFormDto.authorId()
                 : currentUser.getId();
         question.setAuthor(userRepository.findById(authorId)
                 .orElseThrow(() -> new NoSuchElementException("Author not found")));
-        return questionRepository.save(question);
+        Question saved = questionRepository.save(question);
+        searchBackend.index(saved);
+        tagBitmapIndex.index(saved);
+        searchResultCache.questionChanged(Set.of(), SearchResultCache.tagsOf(saved));
+        listingWatermarkService.questionChanged(Set.of(), SearchResultCache.tagsOf(saved));
+        contentVersionService.questionChanged(saved.getId());
+        tagSuggestIndex.questionTagsChanged(Set.of(), SearchResultCache.tagsOf(saved));
+        relatedQuestionService.questionChanged(saved.getId());
+        return saved;
     }
 
     @Transactional
     public Question updateQuestion(Long id, QuestionFormDto questionFormDto) {
         Question existing = questionRepository.findById(id)
                 .orElseThrow(() -> new NoSuchElementException("Question not found"));
+        Set<String> oldTags = SearchResultCache.tagsOf(existing);
         existing.setTitle(questionFormDto.title());
         existing.setBody(questionFormDto.body());
+        existing.setBodyHtml(markdownRenderService.render(questionFormDto.body()));
+        existing.setExcerpt(markdownRenderService.excerptOf(existing.getBodyHtml()));
         existing.setTags(extractTags(questionFormDto.tags()));
-        return questionRepository.save(existing);
+        Question saved = questionRepository.save(existing);
+        searchBackend.index(saved);
+        tagBitmapIndex.index(saved);
+        searchResultCache.questionChanged(oldTags, SearchResultCache.tagsOf(saved));
+        listingWatermarkService.questionChanged(oldTags, SearchResultCache.tagsOf(saved));
+        contentVersionService.questionChanged(saved.getId());
+        tagSuggestIndex.questionTagsChanged(oldTags, SearchResultCache.tagsOf(saved));
+        if (!oldTags.equals(SearchResultCache.tagsOf(saved))) {
+            relatedQuestionService.questionChanged(saved.getId());
+        }
+        return saved;
     }
 
     public Optional<Question> findById(Long id) {
         return questionRepository.findById(id);
     }
 
-    @Transactional
+    // Buffered; written to the database in batches by ViewCountBuffer
     public void incrementViewCount(Long id) {
-        questionRepository.incrementViewCount(id);
+        viewCountBuffer.questionViewed(id);
     }
 
+    @Transactional
     public void deleteQuestion(Long id) {
+        Set<String> oldTags = questionRepository.findById(id).map(SearchResultCache::tagsOf).orElse(Set.of());
         questionRepository.deleteById(id);
+        searchResultCache.questionChanged(oldTags, Set.of());
+        listingWatermarkService.questionChanged(oldTags, Set.of());
+        contentVersionService.questionChanged(id);
+        tagSuggestIndex.questionTagsChanged(oldTags, Set.of());
+        searchBackend.remove(id);
+        tagBitmapIndex.remove(id);
+        relatedQuestionService.questionRemoved(id);
+        viewerSketchService.questionRemoved(id);
     }
 
     private List<Tag> extractTags(String tagListString) {
@@ -91,75 +160,48 @@ public class QuestionService {
                                 // create Tag manually instead of using builder
                                 Tag tag = new Tag();
                                 tag.setName(normalized);
-                                return tagRepository.save(tag);
+                                Tag created = tagRepository.save(tag);
+                                tagSuggestIndex.add(created.getName());
+                                return created;
                             });
                 })
                 .collect(Collectors.toList());
     }
 
-    public void voteQuestion(Question question, String choice, String postType, UserPrincipal principal, Long id){
-        int score = question.getScore();
-        User user = userRepository.findById(principal.getId()).get();
-        Vote vote = voteRepository.findByUserIdAndPostIdAndPostType(user.getId(), id, postType).isEmpty()
-                ? new Vote()
-                : voteRepository.findByUserIdAndPostIdAndPostType(principal.getId(), id, postType).get();
-        int newVoteValue = choice.equals("upvote") ? 1 : -1;
-        if (vote.getPostId() == null) {
-            // New vote - user hasn't voted before
-            vote.setUser(user);
-            vote.setPostId(id);
-            vote.setPostType(postType);
-            vote.setVoteValue(newVoteValue);
-            score += newVoteValue;
-        } else {
-            // User has voted before - toggle or change vote
-            int oldVoteValue = vote.getVoteValue();
-
-            if (oldVoteValue == newVoteValue) {
-                // Clicking same vote - remove vote
-                voteRepository.delete(vote);
-                score -= oldVoteValue;
-                question.setScore(score);
-                questionRepository.save(question);
-                return;
-            } else {
-                // Changing vote (upvote to downvote or vice versa)
-                score -= oldVoteValue;  // Remove old vote
-                score += newVoteValue;  // Add new vote
-                vote.setVoteValue(newVoteValue);
-            }
-        }
+    // Not transactional: the vote commits inside VoteService (possibly batched with others, and together with the
+    // page's content version), the cache hooks below then run immediately
+    public void voteQuestion(Question question, String choice, UserPrincipal principal, Long id){
+        VoteService.VoteResult result = voteService.voteQuestion(principal.getId(), id, choice);
+        if (result.scoreDelta() == 0) return;
+        searchResultCache.scoreChanged(question);
+        listingWatermarkService.questionChanged(SearchResultCache.tagsOf(question));
+    }
 
-        voteRepository.save(vote);
-        question.setScore(score);
-        questionRepository.save(question);
+    // Free-text searches with keywords are best shown in relevance order
+    public boolean hasKeywords(String query) {
+        return !searchQueryParser.parse(query).getKeywords().isEmpty();
     }
 
-    public Page<QuestionResponseDto> search(String query, Pageable pageable) {
-        Page<Question> results = getSeachedQuestions(pageable, query);
-        return results.map(question -> {
-            int answerCount = question.getAnswers() != null ? question.getAnswers().size() : 0;
-
-            return new QuestionResponseDto(
-                    question.getId(),
-                    question.getAuthor().getId(),
-                    question.getAuthor().getName(),
-                    question.getAuthor().getEmail(),
-                    question.getAuthor().getProfileImageUrl(),
-                    question.getAuthor().getReputation(),
-                    question.getTitle(),
-                    question.getBody(),
-                    question.getCreatedAt(),
-                    question.getUpdatedAt(),
-                    question.getViewCount(),
-                    question.getScore(),
-                    answerCount,
-                    question.getComments(),
-                    question.getTags().stream()
-                            .map(tag -> new TagResponseDto(tag.getId(), tag.getName(), Collections.emptyList()))
-                            .collect(Collectors.toList())
-            );
-        });
+    private QuestionResponseDto toResponseDto(Question question) {
+        return new QuestionResponseDto(
+                question.getId(),
+                question.getAuthor().getId(),
+                question.getAuthor().getName(),
+                question.getAuthor().getEmail(),
+                question.getAuthor().getProfileImageUrl(),
+                question.getAuthor().getReputation(),
+                question.getTitle(),
+                markdownRenderService.excerptHtml(question),
+                question.getCreatedAt(),
+                question.getUpdatedAt(),
+                viewCountBuffer.viewsOf(question),
+                question.getScore(),
+                question.getAnswerCount(),
+                question.getComments(),
+                question.getTags().stream()
+                        .map(tag -> new TagResponseDto(tag.getId(), tag.getName(), Collections.emptyList()))
+                        .collect(Collectors.toList())
+        );
     }
 
     public Page<Question> getFilteredQuestions(
@@ -170,7 +212,65 @@ public class QuestionService {
             Integer daysOld,
             String sortParam
     ) {
-        // Parse structured query and merge with UI-provided tags
+        return findQuestions(withTags(query, tags), filterTypes, daysOld, SortType.fromParam(sortParam), pageable);
+    }
+
+    // Filters of the list page without paging or ordering, for callers that stream every match
+    public Specification<Question> getFilterSpecification(String query,
+                                                          List<String> tags,
+                                                          List<FilterType> filterTypes,
+                                                          Integer daysOld) {
+        SearchQuery searchQuery = withTags(query, tags);
+        return QuestionSpecifications.matching(searchQuery, filterTypes, daysOld)
+                .and(tagFilter(searchQuery))
+                .and(searchBackend.match(searchQuery.getKeywords()).filter());
+    }
+
+    // Keyset continuation of the list page: the next `size` rows after the cursor, with no OFFSET and no count query
+    public Slice<Question> getFilteredQuestionsAfter(
+            QuestionCursor cursor,
+            int size,
+            String query,
+            List<String> tags,
+            List<FilterType> filterTypes,
+            Integer daysOld
+    ) {
+        return findQuestionsAfter(withTags(query, tags), filterTypes, daysOld, cursor, size);
+    }
+
+    private Slice<Question> findQuestionsAfter(SearchQuery searchQuery,
+                                               List<FilterType> filterTypes,
+                                               Integer daysOld,
+                                               QuestionCursor cursor,
+                                               int size) {
+        Specification<Question> filters = QuestionSpecifications.matching(searchQuery, filterTypes, daysOld)
+                .and(tagFilter(searchQuery))
+                .and(searchBackend.match(searchQuery.getKeywords()).filter())
+                .and(QuestionSpecifications.after(cursor));
+
+        // One extra row tells whether there is a next slice
+        List<Question> rows = questionRepository.findFirst(filters, cursor.sortType(), size + 1);
+        boolean hasNext = rows.size() > size;
+        List<Question> content = hasNext ? rows.subList(0, size) : rows;
+        return new SliceImpl<>(content, PageRequest.of(0, size), hasNext);
+    }
+
+    // Cursor pointing past the last row of the slice, or null when there is nothing after it
+    public String nextCursor(Slice<Question> slice, SortType sortType) {
+        if (!slice.hasNext() || slice.getContent().isEmpty() || sortType == SortType.RELEVANCE) {
+            return null;
+        }
+        Question last = slice.getContent().get(slice.getContent().size() - 1);
+        long sortValue = switch (sortType) {
+            case HIGHEST_SCORE -> last.getScore();
+            case MOST_ANSWERS -> last.getAnswerCount();
+            default -> 0;
+        };
+        return new QuestionCursor(sortType, sortValue, last.getCreatedAt(), last.getId()).encode();
+    }
+
+    // Parse structured query and merge with UI-provided tags
+    private SearchQuery withTags(String query, List<String> tags) {
         SearchQuery parsed = searchQueryParser.parse(query);
         List<String> combinedTags = new ArrayList<>();
         if (parsed.getTags() != null) combinedTags.addAll(parsed.getTags());
@@ -182,263 +282,96 @@ public class QuestionService {
                 .distinct()
                 .toList();
 
-        SearchQuery augmented = new SearchQuery(
-                parsed.getKeywords(),
-                parsed.getNumericFilters(),
-                parsed.getStringFilters(),
-                combinedTags
-        );
-
-        // Use repository to narrow base set, then apply remaining filters in-memory
-        Page<Question> base = selectBaseResult(augmented);
-        List<Question> working = new ArrayList<>(base.getContent());
-
-        // Apply structured filters (tags, numeric, string incl. isaccepted, keywords)
-        working = applyFilters(working, augmented);
-
-        // Checkbox filters
-        boolean requireNoAnswers = filterTypes != null && filterTypes.contains(FilterType.NO_ANSWERS);
-        boolean requireNoUpvotedOrAccepted = filterTypes != null && filterTypes.contains(FilterType.NO_UPVOTED_OR_ACCEPTED_ANSWER);
-
-        if (requireNoAnswers) {
-            working = working.stream()
-                    .filter(q -> q.getAnswers() == null || q.getAnswers().isEmpty())
-                    .collect(Collectors.toList());
-        }
+        return parsed.withTags(combinedTags);
+    }
 
-        if (requireNoUpvotedOrAccepted) {
-            working = working.stream()
-                    .filter(q -> q.getAnswers() == null || q.getAnswers().stream()
-                            .noneMatch(a -> a.isAccepted() || a.getScore() > 0))
-                    .collect(Collectors.toList());
+    private Page<Question> findQuestions(SearchQuery searchQuery,
+                                         List<FilterType> filterTypes,
+                                         Integer daysOld,
+                                         SortType sortType,
+                                         Pageable pageable) {
+        SearchResultCache.Key cacheKey = SearchResultCache.keyFor(searchQuery, filterTypes, daysOld, sortType, pageable);
+        Optional<SearchResultCache.CachedPage> cached = searchResultCache.get(cacheKey);
+        if (cached.isPresent()) {
+            return new PageImpl<>(loadInOrder(cached.get().ids()), withoutSort(pageable), cached.get().total());
         }
 
-        // Min age (days old)
-        if (daysOld != null && daysOld > 0) {
-            LocalDateTime cutoff = LocalDateTime.now().minusDays(daysOld);
-            working = working.stream()
-                    .filter(q -> q.getCreatedAt() != null && (q.getCreatedAt().isBefore(cutoff) || q.getCreatedAt().isEqual(cutoff)))
-                    .collect(Collectors.toList());
-        }
+        QuestionSearchBackend.KeywordMatch keywordMatch = searchBackend.match(searchQuery.getKeywords());
+        Specification<Question> filters = QuestionSpecifications.matching(searchQuery, filterTypes, daysOld)
+                .and(tagFilter(searchQuery))
+                .and(keywordMatch.filter());
 
-        // Sorting
-        Comparator<Question> cmp;
-        if ("Oldest".equalsIgnoreCase(sortParam)) {
-            cmp = Comparator.comparing(q -> q.getCreatedAt(), Comparator.nullsLast(Comparator.naturalOrder()));
-        } else if ("HighestScore".equalsIgnoreCase(sortParam)) {
-            cmp = Comparator.comparingInt(Question::getScore)
-                    .reversed()
-                    .thenComparing((Question q) -> q.getCreatedAt(), Comparator.nullsLast(Comparator.reverseOrder()));
-        } else if ("MostAnswers".equalsIgnoreCase(sortParam)) {
-            cmp = Comparator.<Question>comparingInt(q -> q.getAnswers() == null ? 0 : q.getAnswers().size())
-                    .reversed()
-                    .thenComparing((Question q) -> q.getCreatedAt(), Comparator.nullsLast(Comparator.reverseOrder()));
+        Page<Question> page;
+        if (sortType == SortType.RELEVANCE && keywordMatch.isRanked()) {
+            page = pageByRank(filters, keywordMatch.rankedIds(), pageable);
         } else {
-            // Default Newest
-            cmp = Comparator.comparing((Question q) -> q.getCreatedAt(), Comparator.nullsLast(Comparator.reverseOrder()));
+            page = questionRepository.findAll(filters.and(QuestionSpecifications.orderedBy(sortType)), withoutSort(pageable));
         }
-        working.sort(cmp);
-
-        // Paginate and return Page
-        return paginate(working, pageable);
+        searchResultCache.put(cacheKey, new SearchResultCache.CachedPage(
+                page.getContent().stream().map(Question::getId).toList(), page.getTotalElements()));
+        return page;
     }
 
-    private Page<Question> selectBaseResult(SearchQuery searchQuery) {
-        Map<String, String> stringFilters = searchQuery.getStringFilters();
-        Map<String, Integer> numericFilters = searchQuery.getNumericFilters();
-        List<String> tags = searchQuery.getTags();
-        List<String> keywords = searchQuery.getKeywords();
-
-        if (stringFilters.containsKey("user")) {
-            String userToken = stringFilters.get("user");
-            if (userToken != null) {
-                try {
-                    Long userId = Long.parseLong(userToken.trim());
-                    return questionRepository.findByAuthor_Id(Pageable.unpaged(), userId);
-                } catch (NumberFormatException ignore) {
-                    // not a numeric id; treat as username
-                }
-                return questionRepository.findByAuthor_Name(Pageable.unpaged(), userToken);
-            }
-        }
-
-        if (!tags.isEmpty()) {
-            return questionRepository.findQuestionsByAllTags(tags, tags.size(), Pageable.unpaged());
-        }
-
-        if (numericFilters.containsKey("answers")) {
-            Integer ansCount = numericFilters.get("answers");
-            return questionRepository.findQuestionsByAnswerCount(ansCount, Pageable.unpaged());
+    // Required tags AND every any-of group AND NOT the excluded tags, as bitmap operations when the index is up
+    private Specification<Question> tagFilter(SearchQuery searchQuery) {
+        Set<String> requiredTags = QuestionSpecifications.requiredTags(searchQuery);
+        List<List<String>> anyTagGroups = searchQuery.getAnyTagGroups();
+        List<String> excludedTags = searchQuery.getExcludedTags();
+        if (requiredTags.isEmpty() && anyTagGroups.isEmpty() && excludedTags.isEmpty()) {
+            return Specification.allOf();
         }
-
-        if (numericFilters.containsKey("score")) {
-            Integer minScore = numericFilters.get("score");
-            return questionRepository.findQuestionsByMinScore(minScore, Pageable.unpaged());
-        }
-
-        if (!keywords.isEmpty()) {
-            String keyword = keywords.get(0);
-            return questionRepository.searchQuestionsByKeyword(keyword, Pageable.unpaged());
-        }
-
-        return questionRepository.findAll(Pageable.unpaged());
-    }
-
-    private List<Question> applyFilters(List<Question> source, SearchQuery searchQuery) {
-        List<Question> working = new ArrayList<>(new LinkedHashSet<>(source));
-
-        Map<String, String> stringFilters = searchQuery.getStringFilters();
-        Map<String, Integer> numericFilters = searchQuery.getNumericFilters();
-        List<String> tags = searchQuery.getTags();
-        List<String> keywords = searchQuery.getKeywords();
-
-        if (stringFilters.containsKey("tag")) {
-            String explicitTag = stringFilters.get("tag").toLowerCase(Locale.ROOT);
-            working = working.stream()
-                    .filter(q -> questionHasAllTags(q, List.of(explicitTag)))
-                    .collect(Collectors.toList());
-        }
-
-        if (!tags.isEmpty()) {
-            working = working.stream()
-                    .filter(q -> questionHasAllTags(q, tags))
-                    .collect(Collectors.toList());
-        }
-
-        if (numericFilters.containsKey("answers")) {
-            int minAnswers = numericFilters.get("answers");
-            working = working.stream()
-                    .filter(q -> q.getAnswers() != null && q.getAnswers().size() >= minAnswers)
-                    .collect(Collectors.toList());
-        }
-
-        if (numericFilters.containsKey("score")) {
-            int minScore = numericFilters.get("score");
-            working = working.stream()
-                    .filter(q -> q.getScore() >= minScore)
-                    .collect(Collectors.toList());
-        }
-
-        if (numericFilters.containsKey("views")) {
-            int minViews = numericFilters.get("views");
-            working = working.stream()
-                    .filter(q -> q.getViewCount() != null && q.getViewCount() >= minViews)
-                    .collect(Collectors.toList());
-        }
-
-        // isaccepted: yes|no|true|false|1|0
-        if (stringFilters.containsKey("isaccepted")) {
-            String val = stringFilters.get("isaccepted");
-            boolean wantAccepted = val != null && (
-                    val.equalsIgnoreCase("yes") ||
-                    val.equalsIgnoreCase("true") ||
-                    val.equals("1")
-            );
-            if (wantAccepted) {
-                working = working.stream()
-                        .filter(q -> q.getAnswers() != null && q.getAnswers().stream().anyMatch(Answer::isAccepted))
-                        .collect(Collectors.toList());
-            } else {
-                working = working.stream()
-                        .filter(q -> q.getAnswers() == null || q.getAnswers().stream().noneMatch(Answer::isAccepted))
-                        .collect(Collectors.toList());
+        if (tagBitmapIndex.isReady()) {
+            RoaringBitmap candidates = tagBitmapIndex.withAllTags(requiredTags);
+            for (List<String> group : anyTagGroups) {
+                if (candidates.isEmpty()) break;
+                candidates.and(tagBitmapIndex.withAnyTag(group));
+            }
+            if (!excludedTags.isEmpty()) {
+                candidates = tagBitmapIndex.withoutTags(candidates, excludedTags);
+            }
+            if (candidates.getCardinality() <= MAX_TAG_ID_FILTER_SIZE) {
+                return QuestionSpecifications.idIn(TagBitmapIndex.toIds(candidates));
             }
         }
+        List<Specification<Question>> specs = new ArrayList<>();
+        specs.add(QuestionSpecifications.hasAllTags(requiredTags));
+        anyTagGroups.forEach(group -> specs.add(QuestionSpecifications.hasAnyTag(group)));
+        specs.add(QuestionSpecifications.hasNoneOfTags(excludedTags));
+        return Specification.allOf(specs);
+    }
 
-        if (!keywords.isEmpty()) {
-            working = working.stream()
-                    .filter(q -> keywords.stream().allMatch(keyword -> questionMatchesKeyword(q, keyword)))
-                    .collect(Collectors.toList());
+    // Keeps the backend's rank order: ids passing the remaining filters are fetched first, then only one page is loaded
+    private Page<Question> pageByRank(Specification<Question> filters, List<Long> rankedIds, Pageable pageable) {
+        Set<Long> matching = new HashSet<>(questionRepository.findIds(filters));
+        List<Long> ordered = rankedIds.stream().filter(matching::contains).toList();
+        if (pageable.isUnpaged()) {
+            return new PageImpl<>(loadInOrder(ordered));
         }
-
-        return working;
+        int start = (int) Math.min(pageable.getOffset(), ordered.size());
+        int end = Math.min(start + pageable.getPageSize(), ordered.size());
+        return new PageImpl<>(loadInOrder(ordered.subList(start, end)), withoutSort(pageable), ordered.size());
     }
 
-    private Page<Question> getSeachedQuestions(Pageable pageable, String rawQuery) {
-        SearchQuery searchQuery = searchQueryParser.parse(rawQuery);
-
-        // Get base (unpaged) results according to the most specific available criterion
-        Page<Question> base = selectBaseResult(searchQuery);
-
-        // Apply remaining filters in-memory
-        List<Question> filtered = applyFilters(base.getContent(), searchQuery);
-
-        // Default sort: Newest first (nulls last)
-        filtered.sort(Comparator.comparing(
-                (Question q) -> q.getCreatedAt(),
-                Comparator.nullsLast(Comparator.reverseOrder())
-        ));
-
-        // Paginate according to request
-        return paginate(filtered, pageable);
+    private List<Question> loadInOrder(List<Long> ids) {
+        Map<Long, Question> byId = questionRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Question::getId, q -> q));
+        return ids.stream().map(byId::get).filter(Objects::nonNull).toList();
     }
 
     public List<Question> getRelatedQuestions(Long questionId, int limit) {
         Question currentQuestion = questionRepository.findById(questionId)
                 .orElseThrow(() -> new NoSuchElementException("Question not found"));
 
-        if (currentQuestion.getTags() == null || currentQuestion.getTags().isEmpty()) {
-            return new ArrayList<>();
-        }
-
-        Set<Tag> tagSet = new HashSet<>(currentQuestion.getTags());
-
-        return questionRepository.findRelatedQuestionsByTags(
-                tagSet,
-                questionId,
-                PageRequest.of(0, limit)
-        );
+        return relatedQuestionService.relatedTo(currentQuestion, limit);
     }
 
-    private Page<Question> paginate(List<Question> items, Pageable pageable) {
+    // The "sort" request parameter is our own sort key (Newest, HighestScore, ...), not an entity property,
+    // so the Sort Spring binds into the Pageable must not reach the repository.
+    private Pageable withoutSort(Pageable pageable) {
         if (pageable.isUnpaged()) {
-            return new PageImpl<>(items);
-        }
-
-        int start = (int) pageable.getOffset();
-        if (start >= items.size()) {
-            return new PageImpl<>(List.of(), pageable, items.size());
-        }
-
-        int end = Math.min(start + pageable.getPageSize(), items.size());
-        List<Question> pageContent = items.subList(start, end);
-        return new PageImpl<>(pageContent, pageable, items.size());
-    }
-
-    private boolean questionHasAllTags(Question question, List<String> requiredTags) {
-        if (requiredTags.isEmpty()) {
-            return true;
-        }
-
-        Set<String> questionTags = question.getTags().stream()
-                .filter(Objects::nonNull)
-                .map(Tag::getName)
-                .filter(Objects::nonNull)
-                .map(name -> name.toLowerCase(Locale.ROOT))
-                .collect(Collectors.toSet());
-
-        return requiredTags.stream()
-                .map(tag -> tag.toLowerCase(Locale.ROOT))
-                .allMatch(questionTags::contains);
-    }
-
-    private boolean questionMatchesKeyword(Question question, String keyword) {
-        if (keyword == null || keyword.isBlank()) {
-            return true;
+            return Pageable.unpaged();
         }
-
-        String needle = keyword.toLowerCase(Locale.ROOT);
-
-        if (question.getTitle() != null && question.getTitle().toLowerCase(Locale.ROOT).contains(needle)) {
-            return true;
-        }
-
-        if (question.getBody() != null && question.getBody().toLowerCase(Locale.ROOT).contains(needle)) {
-            return true;
-        }
-
-        // Do not match tags for keyword searches; tags are handled by tag filters.
-        return false;
+        return PageRequest.of(pageable.getPageNumber(), pageable.getPageSize());
     }
 
 }
@@ -0,0 +1,146 @@
+package com.mountblue.stackoverflowclone.services;
+
+import com.mountblue.stackoverflowclone.models.Question;
+import com.mountblue.stackoverflowclone.repositories.QuestionRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Top-K related questions per question, scored by TagBitmapIndex.similarByTags and stored in related_question,
+// so a question page reads K ids with one indexed lookup. A tag change recomputes the question itself, the
+// questions that currently list it and its new neighbours, on a background thread after commit.
+@Service
+public class RelatedQuestionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RelatedQuestionService.class);
+    public static final int TOP_K = 10;
+    // Tags on more questions than this only contribute their newest questions as new candidates
+    private static final int MAX_EXPANDED_POSTINGS = 20_000;
+    // First key of the per-question advisory locks taken by recompute
+    private static final int LOCK_SPACE = 0x52454c51;
+
+    private final TagBitmapIndex tagBitmapIndex;
+    private final QuestionRepository questionRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ExecutorService updates = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "related-questions");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public RelatedQuestionService(TagBitmapIndex tagBitmapIndex,
+                                  QuestionRepository questionRepository,
+                                  JdbcTemplate jdbcTemplate,
+                                  PlatformTransactionManager transactionManager) {
+        this.tagBitmapIndex = tagBitmapIndex;
+        this.questionRepository = questionRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    // Precomputed neighbours, best first; falls back to recent questions sharing a tag until they exist
+    public List<Question> relatedTo(Question question, int limit) {
+        List<Long> ids = jdbcTemplate.queryForList(
+                "SELECT related_id FROM related_question WHERE question_id = ? ORDER BY rank LIMIT ?",
+                Long.class, question.getId(), limit);
+        if (ids.isEmpty()) {
+            if (question.getTags() == null || question.getTags().isEmpty()) return List.of();
+            return questionRepository.findRelatedQuestionsByTags(new HashSet<>(question.getTags()), question.getId(),
+                    PageRequest.of(0, limit));
+        }
+        Map<Long, Question> byId = questionRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Question::getId, Function.identity()));
+        return ids.stream().map(byId::get).filter(Objects::nonNull).toList();
+    }
+
+    // Recomputes and stores one question's neighbours; returns them. The startup rebuild and the update thread
+    // can both get to the same question: a transaction-scoped advisory lock per question makes the second wait
+    // and then replace the first one's rows, instead of colliding with them on uk_related_question_pair.
+    public List<TagBitmapIndex.Similar> recompute(Long questionId) {
+        return transactionTemplate.execute(status -> {
+            jdbcTemplate.query("SELECT pg_advisory_xact_lock(?, ?)", rs -> {}, LOCK_SPACE, Long.hashCode(questionId));
+            List<TagBitmapIndex.Similar> neighbours =
+                    tagBitmapIndex.similarByTags(questionId, TOP_K, MAX_EXPANDED_POSTINGS);
+            jdbcTemplate.update("DELETE FROM related_question WHERE question_id = ?", questionId);
+            List<Object[]> rows = new ArrayList<>(neighbours.size());
+            for (int rank = 0; rank < neighbours.size(); rank++) {
+                TagBitmapIndex.Similar neighbour = neighbours.get(rank);
+                rows.add(new Object[]{questionId, neighbour.questionId(), neighbour.score(), rank});
+            }
+            if (!rows.isEmpty()) {
+                jdbcTemplate.batchUpdate("""
+                        INSERT INTO related_question (question_id, related_id, score, rank, created_at, updated_at)
+                        VALUES (?, ?, ?, ?, now(), now())
+                        """, rows);
+            }
+            return neighbours;
+        });
+    }
+
+    // Created or retagged question; call after TagBitmapIndex has been updated
+    public void questionChanged(Long questionId) {
+        afterCommit(() -> {
+            Set<Long> affected = new LinkedHashSet<>(listing(questionId));
+            for (TagBitmapIndex.Similar neighbour : recompute(questionId)) {
+                affected.add(neighbour.questionId());
+            }
+            affected.remove(questionId);
+            affected.forEach(this::recompute);
+        });
+    }
+
+    public void questionRemoved(Long questionId) {
+        afterCommit(() -> {
+            List<Long> affected = listing(questionId);
+            jdbcTemplate.update("DELETE FROM related_question WHERE question_id = ? OR related_id = ?",
+                    questionId, questionId);
+            affected.forEach(this::recompute);
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        updates.shutdownNow();
+    }
+
+    // Questions whose stored neighbours include this one
+    private List<Long> listing(Long questionId) {
+        return jdbcTemplate.queryForList(
+                "SELECT question_id FROM related_question WHERE related_id = ?", Long.class, questionId);
+    }
+
+    // Runs on the update thread once the surrounding transaction has committed
+    private void afterCommit(Runnable task) {
+        Runnable logged = () -> {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                logger.warn("Related questions update failed", e);
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    updates.execute(logged);
+                }
+            });
+        } else {
+            updates.execute(logged);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.mountblue.stackoverflowclone.services;
+
+import com.mountblue.stackoverflowclone.models.ReputationEventType;
+import com.mountblue.stackoverflowclone.services.VoteService.VoteResult;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+
+// Reputation is an append-only ledger (reputation_events) plus users.reputation as its running sum. Events are
+// written in the transaction of the action that caused them, followed by one in-place delta per user, so
+// concurrent votes on the same author add up instead of overwriting each other. recompute rebuilds the sums
+// from the ledger under the current point values, a range of user ids at a time.
+@Service
+public class ReputationService {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ContentVersionService contentVersionService;
+
+    public ReputationService(JdbcTemplate jdbcTemplate, ContentVersionService contentVersionService) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.contentVersionService = contentVersionService;
+    }
+
+    // units is +1 for the event, -1 for undoing it
+    public record Change(long userId, ReputationEventType type, long postId, int units) {
+
+        int delta() {
+            return units * type.getPoints();
+        }
+    }
+
+    // The changes for the author of a post whose vote by someone else went from previousValue to newValue
+    public static List<Change> voteChanges(long authorId, String postType, long postId, VoteResult vote) {
+        List<Change> changes = new ArrayList<>(2);
+        if (vote.previousValue() != 0) {
+            changes.add(new Change(authorId, ReputationEventType.forVote(postType, vote.previousValue()), postId, -1));
+        }
+        if (vote.newValue() != 0) {
+            changes.add(new Change(authorId, ReputationEventType.forVote(postType, vote.newValue()), postId, 1));
+        }
+        return changes;
+    }
+
+    // The changes for an answer getting (units 1) or losing (units -1) its accepted mark
+    public static List<Change> acceptChanges(long answerAuthorId, long questionAuthorId, long answerId, int units) {
+        // Accepting your own answer earns nothing
+        if (answerAuthorId == questionAuthorId) return List.of();
+        return List.of(new Change(answerAuthorId, ReputationEventType.ANSWER_ACCEPTED, answerId, units),
+                new Change(questionAuthorId, ReputationEventType.ACCEPTED_AN_ANSWER, answerId, units));
+    }
+
+    // Must join the caller's transaction, so that the events commit or roll back with the action
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(List<Change> changes) {
+        if (changes.isEmpty()) return;
+
+        StringJoiner rows = new StringJoiner(", ");
+        List<Object> args = new ArrayList<>(changes.size() * 5);
+        // Sorted by user id so concurrent writers always lock user rows in the same order
+        SortedMap<Long, Integer> deltas = new TreeMap<>();
+        for (Change change : changes) {
+            rows.add("(?, ?, ?, ?, ?, now(), now())");
+            args.addAll(List.of(change.userId(), change.type().name(), change.postId(), change.units(), change.delta()));
+            deltas.merge(change.userId(), change.delta(), Integer::sum);
+        }
+        // Events go in before the sums are touched; recompute relies on that order (see recompute)
+        jdbcTemplate.update("INSERT INTO reputation_events (user_id, type, post_id, units, delta, created_at, updated_at) VALUES "
+                + rows, args.toArray());
+
+        deltas.values().removeIf(delta -> delta == 0);
+        if (deltas.isEmpty()) return;
+        StringJoiner values = new StringJoiner(", ");
+        List<Object> deltaArgs = new ArrayList<>(deltas.size() * 2);
+        for (Map.Entry<Long, Integer> delta : deltas.entrySet()) {
+            values.add("(?, ?)");
+            deltaArgs.add(delta.getKey());
+            deltaArgs.add(delta.getValue());
+        }
+        jdbcTemplate.update("UPDATE users u SET reputation = u.reputation + v.delta FROM (VALUES " + values
+                + ") AS v(id, delta) WHERE u.id = v.id", deltaArgs.toArray());
+        contentVersionService.usersChanged(deltas.keySet());
+    }
+
+    // Rebuilds the reputation of users with afterId < id <= upToId from the ledger; returns how many changed.
+    // Locking the users first makes this safe against concurrent writers: one that committed before the lock
+    // is included in the sum, one that has not yet inserted its events, or inserted them but not committed,
+    // waits for the lock and then adds its delta on top of the rebuilt value.
+    @Transactional
+    public int recompute(long afterId, long upToId) {
+        jdbcTemplate.query("SELECT id FROM users WHERE id > ? AND id <= ? ORDER BY id FOR UPDATE",
+                rs -> {}, afterId, upToId);
+        List<Long> changed = jdbcTemplate.queryForList("""
+                UPDATE users u
+                SET reputation = s.reputation
+                FROM (SELECT u2.id, COALESCE(SUM(e.units * %s), 0) AS reputation
+                      FROM users u2
+                      LEFT JOIN reputation_events e ON e.user_id = u2.id
+                      WHERE u2.id > ? AND u2.id <= ?
+                      GROUP BY u2.id) s
+                WHERE u.id = s.id AND u.reputation <> s.reputation
+                RETURNING u.id
+                """.formatted(currentPoints()), Long.class, afterId, upToId);
+        contentVersionService.usersChanged(changed);
+        return changed.size();
+    }
+
+    // CASE expression mapping an event type to its points under the current rules
+    private static String currentPoints() {
+        StringBuilder sql = new StringBuilder("CASE e.type");
+        for (ReputationEventType type : ReputationEventType.values()) {
+            sql.append(" WHEN '").append(type.name()).append("' THEN ").append(type.getPoints());
+        }
+        return sql.append(" ELSE 0 END").toString();
+    }
+}
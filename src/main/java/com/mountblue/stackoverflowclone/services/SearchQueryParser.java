@@ -3,100 +3,331 @@ package com.mountblue.stackoverflowclone.services;
 import com.mountblue.stackoverflowclone.models.SearchQuery;
 import org.springframework.stereotype.Component;
 
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.Period;
+import java.time.Year;
+import java.time.YearMonth;
 import java.util.*;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
+// Single left-to-right pass over the raw string: tokens are delimited by index, and only the parts that end up
+// in the SearchQuery are copied out. Syntax:
+//   "quoted phrase"            keyword phrase (':' inside quotes is not a filter)
+//   java, [java], tag:java     required tag
+//   -[php]                     excluded tag
+//   [java] or [kotlin]         any-of tag group; bare tags group the same way, so "java or kotlin" is
+//                              either tag (the regex parser this replaced required a tag named "or")
+//   score:5  score:5..20  answers:..0  views:100..
+//   created:2025  created:2025-01..2025-06  created:2025-01-15..
+//   user:42 | user:name, is:accepted, accepted:yes|no
+// Anything else that is not tag-shaped becomes a keyword.
 @Component
 public class SearchQueryParser {
 
-    // 1) Either: "quoted phrase"  2) Or: any non-space token
-    private static final Pattern TOKEN_PATTERN = Pattern.compile("\"([^\"]+)\"|(\\S+)");
-    // unquoted tokens become tags; allow letters, digits, hyphens, plus, dot, hash, underscore
-    // examples covered: c#, c++, node.js, asp.net, python-3.x, machine_learning
-    private static final Pattern TAG_PATTERN = Pattern.compile("[A-Za-z0-9][A-Za-z0-9.+#_-]*");
-
     // configure your supported filters
     private static final Set<String> NUMERIC_FILTER_KEYS = Set.of("score", "answers", "views");
     private static final Set<String> STRING_FILTER_KEYS  = Set.of("user", "tag", "isaccepted");
+    private static final String RANGE = "..";
 
     public SearchQuery parse(String raw) {
         if (raw == null || raw.isBlank()) {
             return new SearchQuery(List.of(), Map.of(), Map.of(), List.of());
         }
 
-        List<String> keywords = new ArrayList<>();                // quoted phrases only
-        Map<String, Integer> numericFilters = new LinkedHashMap<>();
-        Map<String, String>  stringFilters  = new LinkedHashMap<>();
-        List<String> tags     = new ArrayList<>();                // all unquoted words
-
-        Matcher m = TOKEN_PATTERN.matcher(raw);
-        while (m.find()) {
-            boolean isQuoted = m.group(1) != null; //the quoted words are keywords belonging to the group 1.
-            String token = isQuoted ? m.group(1) : m.group(2);
-            if (token == null || token.isBlank()) continue;
-
-            if (isQuoted) {
-                // Rule: quoted => keyword phrase (ignore any : inside the quotes)
-                keywords.add(token);
+        ParseState state = new ParseState();
+        int length = raw.length();
+        int i = 0;
+        while (i < length) {
+            char c = raw.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
                 continue;
             }
 
-            // Not quoted: check for key:value
-            int idx = token.indexOf(':');
-            if (idx > 0 && idx < token.length() - 1) {
-                String key = token.substring(0, idx).toLowerCase(Locale.ROOT);
-                String val = token.substring(idx + 1);
-
-                // alias support: is:accepted => isaccepted:yes
-                if ("is".equals(key) && "accepted".equalsIgnoreCase(val)) {
-                    stringFilters.put("isaccepted", "yes");
-                    continue;
-                }
-                // alias: accepted:true|yes|1 => isaccepted:...
-                if ("accepted".equals(key)) {
-                    stringFilters.put("isaccepted", val);
+            if (c == '"') {
+                int close = raw.indexOf('"', i + 1);
+                if (close > i + 1) {
+                    // Rule: quoted => keyword phrase (ignore any : inside the quotes)
+                    state.addKeyword(raw.substring(i + 1, close));
+                    i = close + 1;
                     continue;
                 }
+            }
+
+            int end = i;
+            while (end < length && !Character.isWhitespace(raw.charAt(end))) end++;
+            parseToken(raw, i, end, state);
+            i = end;
+        }
+        return state.build();
+    }
+
+    private void parseToken(String raw, int start, int end, ParseState state) {
+        int length = end - start;
 
-                if (NUMERIC_FILTER_KEYS.contains(key)) {
-                    try {
-                        numericFilters.put(key, Integer.parseInt(val));
-                        continue;
-                    } catch (NumberFormatException ignore) {
-                        // fall through, treat as tag/keyword by rule below
-                    }
+        // -[php]
+        if (length > 3 && raw.charAt(start) == '-' && raw.charAt(start + 1) == '[' && raw.charAt(end - 1) == ']') {
+            String tag = normalizeTag(raw, start + 2, end - 1);
+            if (tag != null) {
+                state.excludeTag(tag);
+                return;
+            }
+        }
+
+        // [java]
+        if (length > 2 && raw.charAt(start) == '[' && raw.charAt(end - 1) == ']') {
+            String tag = normalizeTag(raw, start + 1, end - 1);
+            if (tag != null) {
+                state.addTag(tag);
+                return;
+            }
+        }
+
+        // "or" between two tags joins them into an any-of group; anywhere else it is an ordinary word
+        if (length == 2 && raw.regionMatches(true, start, "or", 0, 2) && state.canStartOr()) {
+            state.startOr();
+            return;
+        }
+
+        int idx = indexOf(raw, ':', start, end);
+        if (idx > start && idx < end - 1) {
+            String key = raw.substring(start, idx).toLowerCase(Locale.ROOT);
+            String val = raw.substring(idx + 1, end);
+            if (parseFilter(key, val, state)) {
+                return;
+            }
+            // Unknown key or unparseable value: treat whole token as a plain tag/keyword (least surprise).
+        }
+
+        // Unquoted, not key:value => prefer tag; otherwise treat as keyword
+        String tag = normalizeTag(raw, start, end);
+        if (tag != null) {
+            state.addTag(tag);
+        } else {
+            state.addKeyword(raw.substring(start, end));
+        }
+    }
+
+    private boolean parseFilter(String key, String val, ParseState state) {
+        // alias support: is:accepted => isaccepted:yes
+        if ("is".equals(key) && "accepted".equalsIgnoreCase(val)) {
+            state.stringFilter("isaccepted", "yes");
+            return true;
+        }
+        // alias: accepted:true|yes|1 => isaccepted:...
+        if ("accepted".equals(key)) {
+            state.stringFilter("isaccepted", val);
+            return true;
+        }
+
+        if ("created".equals(key)) {
+            SearchQuery.DateRange range = parseDateRange(val);
+            if (range != null) {
+                state.createdRange(range);
+                return true;
+            }
+            return false;
+        }
+
+        if (NUMERIC_FILTER_KEYS.contains(key)) {
+            if (val.contains(RANGE)) {
+                SearchQuery.NumericRange range = parseNumericRange(val);
+                if (range != null) {
+                    state.numericRange(key, range);
+                    return true;
                 }
-                if (STRING_FILTER_KEYS.contains(key)) {
-                    // special-case: tag:java should behave like a tag filter OR you can also push into tags
-                    if ("tag".equals(key)) {
-                        String t = normalizeTag(val);
-                        if (t != null) tags.add(t);
-                        // and still store it as a string filter if you want both:
-                        stringFilters.put(key, val);
-                    } else {
-                        stringFilters.put(key, val);
-                    }
-                    continue;
+            } else {
+                try {
+                    state.numericFilter(key, Integer.parseInt(val));
+                    return true;
+                } catch (NumberFormatException ignore) {
+                    // fall through, treat as tag/keyword
                 }
-                // Unknown key => per your rule set there are only filters with ":".
-                // If key is unknown, treat whole token as a plain tag (least surprise).
             }
+        }
 
-            // Unquoted, not key:value => prefer tag; otherwise treat as keyword
-            String t = normalizeTag(token);
-            if (t != null) {
-                tags.add(t);
-            } else {
-                keywords.add(token);
+        if (STRING_FILTER_KEYS.contains(key)) {
+            // tag:java behaves like a tag and is also kept as a string filter
+            if ("tag".equals(key)) {
+                String t = normalizeTag(val, 0, val.length());
+                if (t != null) state.addTag(t);
             }
+            state.stringFilter(key, val);
+            return true;
+        }
+        return false;
+    }
+
+    private static SearchQuery.NumericRange parseNumericRange(String val) {
+        int sep = val.indexOf(RANGE);
+        String low = val.substring(0, sep);
+        String high = val.substring(sep + RANGE.length());
+        if (low.isEmpty() && high.isEmpty()) return null;
+        try {
+            return new SearchQuery.NumericRange(
+                    low.isEmpty() ? null : Integer.parseInt(low),
+                    high.isEmpty() ? null : Integer.parseInt(high));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    // Each end names a whole period (year, month or day); the upper end is inclusive of its period
+    private static SearchQuery.DateRange parseDateRange(String val) {
+        int sep = val.indexOf(RANGE);
+        String low = sep < 0 ? val : val.substring(0, sep);
+        String high = sep < 0 ? val : val.substring(sep + RANGE.length());
+        if (low.isEmpty() && high.isEmpty()) return null;
+        try {
+            LocalDate from = low.isEmpty() ? null : periodStart(low);
+            LocalDate to = high.isEmpty() ? null : periodStart(high).plus(periodLength(high));
+            return new SearchQuery.DateRange(from, to);
+        } catch (DateTimeException | IllegalArgumentException e) {
+            return null;
         }
+    }
+
+    private static LocalDate periodStart(String date) {
+        return switch (date.length()) {
+            case 4 -> Year.parse(date).atDay(1);
+            case 7 -> YearMonth.parse(date).atDay(1);
+            case 10 -> LocalDate.parse(date);
+            default -> throw new IllegalArgumentException("Unsupported date: " + date);
+        };
+    }
+
+    private static Period periodLength(String date) {
+        return switch (date.length()) {
+            case 4 -> Period.ofYears(1);
+            case 7 -> Period.ofMonths(1);
+            default -> Period.ofDays(1);
+        };
+    }
+
+    // Tag characters: letters, digits, hyphens, plus, dot, hash, underscore, starting with a letter or digit.
+    // Examples covered: c#, c++, node.js, asp.net, python-3.x, machine_learning
+    private static String normalizeTag(String s, int start, int end) {
+        while (start < end && Character.isWhitespace(s.charAt(start))) start++;
+        while (end > start && Character.isWhitespace(s.charAt(end - 1))) end--;
+        if (start == end || !isAsciiLetterOrDigit(s.charAt(start))) return null;
+        boolean hasUpper = false;
+        for (int i = start; i < end; i++) {
+            char c = s.charAt(i);
+            if (!isAsciiLetterOrDigit(c) && c != '.' && c != '+' && c != '#' && c != '_' && c != '-') return null;
+            hasUpper |= c >= 'A' && c <= 'Z';
+        }
+        String tag = s.substring(start, end);
+        return hasUpper ? tag.toLowerCase(Locale.ROOT) : tag;
+    }
+
+    // Bounded to the token, so a query with no ':' is not rescanned to its end once per token
+    private static int indexOf(String s, char c, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (s.charAt(i) == c) return i;
+        }
+        return -1;
+    }
 
-        return new SearchQuery(keywords, numericFilters, stringFilters, tags);
+    private static boolean isAsciiLetterOrDigit(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9');
     }
 
-    private String normalizeTag(String s) {
-        String x = s.trim().toLowerCase(Locale.ROOT);
-        return TAG_PATTERN.matcher(x).matches() ? x : null;
+    private static final class ParseState {
+        private final List<String> keywords = new ArrayList<>();             // quoted phrases and non-tag words
+        private Map<String, Integer> numericFilters;
+        private Map<String, String> stringFilters;
+        private Map<String, SearchQuery.NumericRange> numericRanges;
+        private final List<String> tags = new ArrayList<>();                 // all unquoted tag-shaped words
+        private List<String> excludedTags;
+        private List<List<String>> anyTagGroups;
+        private SearchQuery.DateRange createdRange;
+
+        // OR-group in progress: its tags, and whether an "or" is waiting for the next tag
+        private List<String> group;
+        private boolean orPending;
+        private boolean lastWasTag;
+
+        void addTag(String tag) {
+            if (orPending) {
+                group.add(tag);
+                orPending = false;
+            } else {
+                closeGroup();
+                tags.add(tag);
+            }
+            lastWasTag = true;
+        }
+
+        boolean canStartOr() {
+            return lastWasTag;
+        }
+
+        void startOr() {
+            if (group == null) {
+                // the tag before "or" moves from the required tags into the group
+                group = new ArrayList<>(2);
+                group.add(tags.remove(tags.size() - 1));
+            }
+            orPending = true;
+            lastWasTag = false;
+        }
+
+        void addKeyword(String keyword) {
+            other();
+            keywords.add(keyword);
+        }
+
+        void excludeTag(String tag) {
+            other();
+            if (excludedTags == null) excludedTags = new ArrayList<>();
+            excludedTags.add(tag);
+        }
+
+        void numericFilter(String key, int value) {
+            other();
+            if (numericFilters == null) numericFilters = new LinkedHashMap<>();
+            numericFilters.put(key, value);
+        }
+
+        void numericRange(String key, SearchQuery.NumericRange range) {
+            other();
+            if (numericRanges == null) numericRanges = new LinkedHashMap<>();
+            numericRanges.put(key, range);
+        }
+
+        void createdRange(SearchQuery.DateRange range) {
+            other();
+            createdRange = range;
+        }
+
+        void stringFilter(String key, String value) {
+            other();
+            if (stringFilters == null) stringFilters = new LinkedHashMap<>();
+            stringFilters.put(key, value);
+        }
+
+        SearchQuery build() {
+            closeGroup();
+            return new SearchQuery(keywords, numericFilters, stringFilters, tags,
+                    numericRanges, createdRange, excludedTags, anyTagGroups);
+        }
+
+        private void other() {
+            closeGroup();
+            lastWasTag = false;
+        }
+
+        // A dangling "[a] or" leaves a one-tag group, which is just a required tag
+        private void closeGroup() {
+            if (group == null) return;
+            if (group.size() > 1) {
+                if (anyTagGroups == null) anyTagGroups = new ArrayList<>();
+                anyTagGroups.add(group);
+            } else {
+                tags.addAll(group);
+            }
+            group = null;
+            orPending = false;
+        }
     }
 }
@@ -0,0 +1,187 @@
+package com.mountblue.stackoverflowclone.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.mountblue.stackoverflowclone.models.*;
+import com.mountblue.stackoverflowclone.repositories.QuestionSpecifications;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+// Pages of question ids for the list and search pages, keyed by a canonical form of the query.
+// Writes evict only the entries they can affect: an entry requiring tags T can only contain questions
+// tagged with all of T, so a change to a question whose tags do not cover T leaves it untouched.
+@Component
+public class SearchResultCache {
+
+    private final Cache<Key, CachedPage> cache;
+    private final LongAdder invalidations = new LongAdder();
+
+    public SearchResultCache(@Value("${app.search.cache.max-entries:10000}") long maxEntries,
+                             @Value("${app.search.cache.ttl-seconds:60}") long ttlSeconds) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+    }
+
+    public record Key(List<String> keywords,
+                      SortedMap<String, Integer> numericFilters,
+                      SortedMap<String, String> stringFilters,
+                      SortedMap<String, SearchQuery.NumericRange> numericRanges,
+                      SearchQuery.DateRange createdRange,
+                      SortedSet<String> requiredTags,
+                      SortedSet<String> excludedTags,
+                      Set<Set<String>> anyTagGroups,
+                      SortedSet<FilterType> filterTypes,
+                      Integer daysOld,
+                      SortType sortType,
+                      int page,
+                      int size) {
+
+        // Sorting and answer-based filters read columns that votes and answers change
+        boolean dependsOnScore() {
+            return sortType == SortType.HIGHEST_SCORE
+                    || numericFilters.containsKey("score")
+                    || numericRanges.containsKey("score");
+        }
+
+        boolean dependsOnAnswers() {
+            return sortType == SortType.MOST_ANSWERS
+                    || numericFilters.containsKey("answers")
+                    || numericRanges.containsKey("answers")
+                    || stringFilters.containsKey("isaccepted")
+                    || !filterTypes.isEmpty();
+        }
+
+        boolean coveredBy(Set<String> questionTags) {
+            return questionTags.containsAll(requiredTags);
+        }
+    }
+
+    public record CachedPage(List<Long> ids, long total) {
+    }
+
+    public record Stats(long size, long hits, long misses, double hitRate, long evictions, long invalidations) {
+    }
+
+    // Null when the query should not be cached: unpaged requests, and view-count filters, which change on every
+    // page view without going through the write paths below
+    public static Key keyFor(SearchQuery searchQuery, List<FilterType> filterTypes, Integer daysOld,
+                             SortType sortType, Pageable pageable) {
+        if (pageable.isUnpaged()
+                || searchQuery.getNumericFilters().containsKey("views")
+                || searchQuery.getNumericRanges().containsKey("views")) {
+            return null;
+        }
+        List<String> keywords = searchQuery.getKeywords().stream()
+                .map(k -> k.trim().toLowerCase(Locale.ROOT))
+                .filter(k -> !k.isEmpty())
+                .sorted()
+                .distinct()
+                .toList();
+        SortedMap<String, String> stringFilters = new TreeMap<>();
+        searchQuery.getStringFilters().forEach((name, value) -> {
+            // tag:xyz is folded into the required tags
+            if (!name.equals("tag")) stringFilters.put(name, value == null ? "" : value.trim().toLowerCase(Locale.ROOT));
+        });
+        SortedSet<FilterType> filters = new TreeSet<>();
+        if (filterTypes != null) filters.addAll(filterTypes);
+        return new Key(
+                keywords,
+                new TreeMap<>(searchQuery.getNumericFilters()),
+                stringFilters,
+                new TreeMap<>(searchQuery.getNumericRanges()),
+                searchQuery.getCreatedRange(),
+                new TreeSet<>(QuestionSpecifications.requiredTags(searchQuery)),
+                new TreeSet<>(searchQuery.getExcludedTags()),
+                searchQuery.getAnyTagGroups().stream().<Set<String>>map(TreeSet::new).collect(Collectors.toSet()),
+                filters,
+                daysOld != null && daysOld > 0 ? daysOld : null,
+                sortType,
+                pageable.getPageNumber(),
+                pageable.getPageSize());
+    }
+
+    public Optional<CachedPage> get(Key key) {
+        return key == null ? Optional.empty() : Optional.ofNullable(cache.getIfPresent(key));
+    }
+
+    public void put(Key key, CachedPage page) {
+        if (key != null) cache.put(key, page);
+    }
+
+    // Created, edited or deleted question: membership may change for entries covered by the old or new tags
+    public void questionChanged(Collection<String> oldTags, Collection<String> newTags) {
+        Set<String> before = normalize(oldTags);
+        Set<String> after = normalize(newTags);
+        evictWhen(key -> key.coveredBy(before) || key.coveredBy(after));
+    }
+
+    public void scoreChanged(Question question) {
+        Set<String> tags = tagsOf(question);
+        evictWhen(key -> key.dependsOnScore() && key.coveredBy(tags));
+    }
+
+    // Answer added, removed, voted or accepted
+    public void answersChanged(Question question) {
+        Set<String> tags = tagsOf(question);
+        evictWhen(key -> key.dependsOnAnswers() && key.coveredBy(tags));
+    }
+
+    public static Set<String> tagsOf(Question question) {
+        if (question == null || question.getTags() == null) return Set.of();
+        return normalize(question.getTags().stream().map(Tag::getName).toList());
+    }
+
+    public Stats getStats() {
+        CacheStats stats = cache.stats();
+        return new Stats(cache.estimatedSize(), stats.hitCount(), stats.missCount(), stats.hitRate(),
+                stats.evictionCount(), invalidations.sum());
+    }
+
+    public void clear() {
+        cache.invalidateAll();
+    }
+
+    // Evict after commit, so a concurrent reader cannot re-cache the pre-write state in between
+    private void evictWhen(Predicate<Key> affected) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evictNow(affected);
+                }
+            });
+        } else {
+            evictNow(affected);
+        }
+    }
+
+    private void evictNow(Predicate<Key> affected) {
+        cache.asMap().keySet().removeIf(key -> {
+            if (!affected.test(key)) return false;
+            invalidations.increment();
+            return true;
+        });
+    }
+
+    private static Set<String> normalize(Collection<String> tagNames) {
+        Set<String> normalized = new HashSet<>();
+        if (tagNames == null) return normalized;
+        for (String name : tagNames) {
+            if (name != null) normalized.add(name.trim().toLowerCase(Locale.ROOT));
+        }
+        return normalized;
+    }
+}
@@ -0,0 +1,390 @@
+package com.mountblue.stackoverflowclone.services;
+
+import com.mountblue.stackoverflowclone.models.Question;
+import com.mountblue.stackoverflowclone.models.Tag;
+import org.roaringbitmap.IntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// tag id -> compressed bitmap of question ids. Multi-tag AND / OR / NOT queries become bitmap
+// operations instead of JOIN ... GROUP BY ... HAVING COUNT(DISTINCT t.id) = n.
+// Writes are applied when their transaction commits, so a rollback never leaves the index ahead of the
+// database. Writes that land while a rebuild is reading its snapshot are replayed on top of it.
+@Component
+public class TagBitmapIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(TagBitmapIndex.class);
+    private static final long[] NO_TAGS = new long[0];
+    private static final Comparator<Similar> BY_SCORE =
+            Comparator.comparingDouble(Similar::score).thenComparingLong(Similar::questionId);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<Long, RoaringBitmap> questionsByTag = new HashMap<>();
+    // Lower-cased name -> every tag row with that name; tags differing only in case are one tag to filters
+    private final Map<String, Set<Long>> tagIdsByName = new HashMap<>();
+    private final Map<Long, String> tagNamesById = new HashMap<>();
+    // question id -> tag ids, so an edit or delete can clear the old bits
+    private final Map<Integer, long[]> tagsByQuestion = new HashMap<>();
+    private final RoaringBitmap allQuestions = new RoaringBitmap();
+    // Non-null while a rebuild runs: the writes to apply again once its snapshot is swapped in
+    private List<Update> replayAfterRebuild;
+    private volatile boolean ready = false;
+
+    public TagBitmapIndex(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public record Similar(long questionId, double score) {
+    }
+
+    // The tags of a question as of a committed write; tagIds is null when the question was deleted
+    private record Update(int bit, long[] tagIds, String[] tagNames) {
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long started = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try {
+            replayAfterRebuild = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        try {
+            Map<String, Set<Long>> names = new HashMap<>();
+            Map<Long, String> namesById = new HashMap<>();
+            jdbcTemplate.query("SELECT id, name FROM tags", rs -> {
+                String name = rs.getString("name");
+                if (name == null) return;
+                names.computeIfAbsent(name.toLowerCase(Locale.ROOT), k -> new TreeSet<>()).add(rs.getLong("id"));
+                namesById.put(rs.getLong("id"), name);
+            });
+
+            Map<Long, RoaringBitmap> bitmaps = new HashMap<>();
+            Map<Integer, List<Long>> tagLists = new HashMap<>();
+            RoaringBitmap questions = new RoaringBitmap();
+            jdbcTemplate.query("SELECT id FROM question", rs -> {
+                questions.add(toBit(rs.getLong("id")));
+            });
+            jdbcTemplate.query("SELECT question_id, tag_id FROM question_tags", rs -> {
+                int questionBit = toBit(rs.getLong("question_id"));
+                long tagId = rs.getLong("tag_id");
+                bitmaps.computeIfAbsent(tagId, k -> new RoaringBitmap()).add(questionBit);
+                tagLists.computeIfAbsent(questionBit, k -> new ArrayList<>()).add(tagId);
+            });
+            bitmaps.values().forEach(RoaringBitmap::runOptimize);
+            questions.runOptimize();
+
+            lock.writeLock().lock();
+            try {
+                questionsByTag.clear();
+                questionsByTag.putAll(bitmaps);
+                tagIdsByName.clear();
+                tagIdsByName.putAll(names);
+                tagNamesById.clear();
+                tagNamesById.putAll(namesById);
+                tagsByQuestion.clear();
+                tagLists.forEach((question, tags) ->
+                        tagsByQuestion.put(question, tags.stream().mapToLong(Long::longValue).toArray()));
+                allQuestions.clear();
+                allQuestions.or(questions);
+                // Each update carries the question's full tag set, so replaying one the snapshot already saw is harmless
+                int replayed = replayAfterRebuild.size();
+                replayAfterRebuild.forEach(this::applyLocked);
+                if (replayed > 0) logger.info("Replayed {} tag index writes made during the rebuild", replayed);
+            } finally {
+                lock.writeLock().unlock();
+            }
+            ready = true;
+            logger.info("Tag bitmap index built in {} ms: {} tags, {} questions, ~{} KB",
+                    System.currentTimeMillis() - started, bitmaps.size(), questions.getCardinality(),
+                    getSizeInBytes() / 1024);
+        } finally {
+            lock.writeLock().lock();
+            try {
+                replayAfterRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    // Reads the question's tags now, inside the caller's transaction, and applies them once it commits
+    public void index(Question question) {
+        if (question == null || question.getId() == null) return;
+        List<Tag> tags = question.getTags() == null ? List.of() : question.getTags();
+        long[] tagIds = new long[tags.size()];
+        String[] tagNames = new String[tags.size()];
+        for (int i = 0; i < tags.size(); i++) {
+            tagIds[i] = tags.get(i).getId();
+            tagNames[i] = tags.get(i).getName();
+        }
+        afterCommit(new Update(toBit(question.getId()), tagIds, tagNames));
+    }
+
+    public void remove(Long questionId) {
+        afterCommit(new Update(toBit(questionId), null, null));
+    }
+
+    // Questions carrying every one of the tags; an unknown tag yields an empty result
+    public RoaringBitmap withAllTags(Collection<String> tagNames) {
+        lock.readLock().lock();
+        try {
+            List<RoaringBitmap> bitmaps = new ArrayList<>();
+            for (String name : tagNames) {
+                RoaringBitmap bitmap = bitmapForName(name);
+                if (bitmap == null) return new RoaringBitmap();
+                bitmaps.add(bitmap);
+            }
+            if (bitmaps.isEmpty()) return allQuestions.clone();
+            // smallest first keeps the intermediate results small
+            bitmaps.sort(Comparator.comparingInt(RoaringBitmap::getCardinality));
+            RoaringBitmap result = bitmaps.get(0).clone();
+            for (int i = 1; i < bitmaps.size() && !result.isEmpty(); i++) {
+                result.and(bitmaps.get(i));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public RoaringBitmap withAnyTag(Collection<String> tagNames) {
+        lock.readLock().lock();
+        try {
+            RoaringBitmap result = new RoaringBitmap();
+            for (String name : tagNames) {
+                RoaringBitmap bitmap = bitmapForName(name);
+                if (bitmap != null) result.or(bitmap);
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public RoaringBitmap withoutTags(RoaringBitmap base, Collection<String> tagNames) {
+        lock.readLock().lock();
+        try {
+            RoaringBitmap result = base.clone();
+            for (String name : tagNames) {
+                RoaringBitmap bitmap = bitmapForName(name);
+                if (bitmap != null) result.andNot(bitmap);
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Map<Long, Integer> questionCountsByTag() {
+        lock.readLock().lock();
+        try {
+            Map<Long, Integer> counts = new HashMap<>();
+            questionsByTag.forEach((tagId, bitmap) -> counts.put(tagId, bitmap.getCardinality()));
+            return counts;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long[] tagIdsOf(Long questionId) {
+        lock.readLock().lock();
+        try {
+            long[] tagIds = tagsByQuestion.get(toBit(questionId));
+            return tagIds == null ? new long[0] : tagIds.clone();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Tag names of a question without touching its lazy tags collection
+    public List<String> tagNamesOf(Long questionId) {
+        lock.readLock().lock();
+        try {
+            long[] tagIds = tagsByQuestion.get(toBit(questionId));
+            if (tagIds == null) return List.of();
+            List<String> names = new ArrayList<>(tagIds.length);
+            for (long tagId : tagIds) {
+                String name = tagNamesById.get(tagId);
+                if (name != null) names.add(name);
+            }
+            return names;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Best k questions by IDF-weighted Jaccard over tags: idf(shared tags) / idf(tags of either question), with
+    // idf = ln(1 + N / questions carrying the tag). Tags are expanded rarest first; a tag on more than
+    // maxPostings questions only adds its newest maxPostings questions as candidates, but still scores
+    // every candidate found so far. Ties go to the newer question.
+    public List<Similar> similarByTags(Long questionId, int k, int maxPostings) {
+        lock.readLock().lock();
+        try {
+            int self = toBit(questionId);
+            long[] own = tagsByQuestion.getOrDefault(self, NO_TAGS);
+            double total = allQuestions.getCardinality();
+            Long[] byRarity = Arrays.stream(own).boxed().toArray(Long[]::new);
+            Arrays.sort(byRarity, Comparator.comparingInt(this::postingsOf));
+
+            Map<Integer, Double> shared = new HashMap<>();
+            double ownWeight = 0;
+            for (Long tagId : byRarity) {
+                RoaringBitmap postings = questionsByTag.get(tagId);
+                if (postings == null || postings.isEmpty()) continue;
+                double idf = idf(postings.getCardinality(), total);
+                ownWeight += idf;
+                if (postings.getCardinality() <= maxPostings) {
+                    postings.forEach((int bit) -> {
+                        if (bit != self) shared.merge(bit, idf, Double::sum);
+                    });
+                } else {
+                    shared.replaceAll((bit, weight) -> postings.contains(bit) ? weight + idf : weight);
+                    IntIterator newest = postings.getReverseIntIterator();
+                    for (int taken = 0; newest.hasNext() && taken < maxPostings; taken++) {
+                        int bit = newest.next();
+                        if (bit != self) shared.putIfAbsent(bit, idf);
+                    }
+                }
+            }
+
+            // min-heap of the k best so far
+            PriorityQueue<Similar> best = new PriorityQueue<>(k + 1, BY_SCORE);
+            for (Map.Entry<Integer, Double> candidate : shared.entrySet()) {
+                double candidateWeight = 0;
+                for (long tagId : tagsByQuestion.getOrDefault(candidate.getKey(), NO_TAGS)) {
+                    int postings = postingsOf(tagId);
+                    if (postings > 0) candidateWeight += idf(postings, total);
+                }
+                double overlap = candidate.getValue();
+                best.add(new Similar(candidate.getKey(), overlap / (ownWeight + candidateWeight - overlap)));
+                if (best.size() > k) best.poll();
+            }
+            List<Similar> result = new ArrayList<>(best);
+            result.sort(BY_SCORE.reversed());
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long getSizeInBytes() {
+        lock.readLock().lock();
+        try {
+            long bytes = allQuestions.getSizeInBytes();
+            for (RoaringBitmap bitmap : questionsByTag.values()) {
+                bytes += bitmap.getSizeInBytes();
+            }
+            return bytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public static List<Long> toIds(RoaringBitmap bitmap) {
+        List<Long> ids = new ArrayList<>(bitmap.getCardinality());
+        bitmap.forEach((int bit) -> ids.add((long) bit));
+        return ids;
+    }
+
+    // Union over every tag row with this name, or null for an unknown name
+    private RoaringBitmap bitmapForName(String name) {
+        if (name == null) return null;
+        Set<Long> tagIds = tagIdsByName.get(name.trim().toLowerCase(Locale.ROOT));
+        if (tagIds == null) return null;
+        if (tagIds.size() == 1) return questionsByTag.get(tagIds.iterator().next());
+        RoaringBitmap union = null;
+        for (Long tagId : tagIds) {
+            RoaringBitmap bitmap = questionsByTag.get(tagId);
+            if (bitmap == null) continue;
+            if (union == null) union = new RoaringBitmap();
+            union.or(bitmap);
+        }
+        return union;
+    }
+
+    private void afterCommit(Update update) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(update);
+                }
+            });
+        } else {
+            apply(update);
+        }
+    }
+
+    private void apply(Update update) {
+        lock.writeLock().lock();
+        try {
+            applyLocked(update);
+            if (replayAfterRebuild != null) replayAfterRebuild.add(update);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void applyLocked(Update update) {
+        int bit = update.bit();
+        clearLocked(bit);
+        if (update.tagIds() == null) {
+            allQuestions.remove(bit);
+            return;
+        }
+        for (int i = 0; i < update.tagIds().length; i++) {
+            long tagId = update.tagIds()[i];
+            String name = update.tagNames()[i];
+            if (name != null) {
+                tagIdsByName.computeIfAbsent(name.toLowerCase(Locale.ROOT), k -> new TreeSet<>()).add(tagId);
+                tagNamesById.put(tagId, name);
+            }
+            questionsByTag.computeIfAbsent(tagId, k -> new RoaringBitmap()).add(bit);
+        }
+        tagsByQuestion.put(bit, update.tagIds());
+        allQuestions.add(bit);
+    }
+
+    private int postingsOf(long tagId) {
+        RoaringBitmap bitmap = questionsByTag.get(tagId);
+        return bitmap == null ? 0 : bitmap.getCardinality();
+    }
+
+    private static double idf(int postings, double totalQuestions) {
+        return Math.log(1 + totalQuestions / postings);
+    }
+
+    private void clearLocked(int bit) {
+        long[] previous = tagsByQuestion.remove(bit);
+        if (previous == null) return;
+        for (long tagId : previous) {
+            RoaringBitmap bitmap = questionsByTag.get(tagId);
+            if (bitmap != null) bitmap.remove(bit);
+        }
+    }
+
+    // Question ids come from an IDENTITY column and stay well inside the 32-bit range Roaring works with
+    private static int toBit(long questionId) {
+        return Math.toIntExact(questionId);
+    }
+}
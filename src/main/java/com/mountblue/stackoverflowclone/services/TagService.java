@@ -5,19 +5,36 @@ import com.mountblue.stackoverflowclone.repositories.TagRepository;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @Service
 public class TagService {
 
     private final TagRepository tagRepository;
+    private final TagBitmapIndex tagBitmapIndex;
 
-    public TagService(TagRepository tagRepository) {
+    public TagService(TagRepository tagRepository, TagBitmapIndex tagBitmapIndex) {
         this.tagRepository = tagRepository;
+        this.tagBitmapIndex = tagBitmapIndex;
     }
 
     @Transactional(readOnly = true)
     public List<Tag> getAllTags() {
         return tagRepository.findAllByOrderByNameAsc();
     }
+
+    // tag id -> number of questions, served from the bitmap index once it is built
+    @Transactional(readOnly = true)
+    public Map<Long, Integer> getQuestionCounts() {
+        if (tagBitmapIndex.isReady()) {
+            return tagBitmapIndex.questionCountsByTag();
+        }
+        Map<Long, Integer> counts = new HashMap<>();
+        for (Object[] row : tagRepository.findAllTagsWithCount()) {
+            counts.put(((Tag) row[0]).getId(), ((Number) row[1]).intValue());
+        }
+        return counts;
+    }
 }
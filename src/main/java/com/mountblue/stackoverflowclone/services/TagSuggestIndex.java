@@ -0,0 +1,300 @@
+package com.mountblue.stackoverflowclone.services;
+
+import com.mountblue.stackoverflowclone.models.Tag;
+import com.mountblue.stackoverflowclone.repositories.TagRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Prefix trie over lower-cased tag names for editor autocomplete. Every node keeps the TOP_K most used tags
+// of its subtree, so a lookup is a walk down the prefix plus a copy of at most TOP_K entries.
+// Like TagBitmapIndex, writes are applied when their transaction commits, and a rebuild fills a fresh trie while
+// the old one keeps serving, then swaps it in and replays the writes that arrived meanwhile.
+@Component
+public class TagSuggestIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(TagSuggestIndex.class);
+    public static final int TOP_K = 10;
+
+    private static final char[] NO_KEYS = new char[0];
+    private static final Node[] NO_CHILDREN = new Node[0];
+    private static final Entry[] NO_ENTRIES = new Entry[0];
+    // Most questions first, then alphabetical
+    private static final Comparator<Entry> BY_POPULARITY =
+            Comparator.comparingInt((Entry e) -> e.count).reversed().thenComparing(e -> e.name);
+
+    private final TagRepository tagRepository;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Node root = new Node();
+    private final Map<String, Entry> entries = new HashMap<>();
+    // Non-null while a rebuild runs: the writes to apply again once its trie is swapped in
+    private List<Update> replayAfterRebuild;
+    private volatile boolean ready = false;
+
+    public TagSuggestIndex(TagRepository tagRepository) {
+        this.tagRepository = tagRepository;
+    }
+
+    public record Suggestion(String name, int questionCount) {
+    }
+
+    // Normalized names: a tag created with no questions yet, or the tags a question gained and lost
+    private record Update(String createdTag, Set<String> added, Set<String> removed) {
+    }
+
+    private static final class Entry {
+        final String name;
+        int count;
+
+        Entry(String name, int count) {
+            this.name = name;
+            this.count = count;
+        }
+    }
+
+    private static final class Node {
+        // children sorted by key char, found by binary search
+        char[] keys = NO_KEYS;
+        Node[] children = NO_CHILDREN;
+        // tag whose name ends at this node, if any
+        Entry entry;
+        Entry[] top = NO_ENTRIES;
+
+        Node child(char c) {
+            int i = Arrays.binarySearch(keys, c);
+            return i >= 0 ? children[i] : null;
+        }
+
+        Node childOrCreate(char c) {
+            int i = Arrays.binarySearch(keys, c);
+            if (i >= 0) return children[i];
+            int at = -i - 1;
+            char[] newKeys = new char[keys.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(keys, 0, newKeys, 0, at);
+            System.arraycopy(children, 0, newChildren, 0, at);
+            newKeys[at] = c;
+            newChildren[at] = new Node();
+            System.arraycopy(keys, at, newKeys, at + 1, keys.length - at);
+            System.arraycopy(children, at, newChildren, at + 1, children.length - at);
+            keys = newKeys;
+            children = newChildren;
+            return newChildren[at];
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long started = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try {
+            replayAfterRebuild = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        try {
+            List<Object[]> rows = tagRepository.findAllTagsWithCount();
+            Node builtRoot = new Node();
+            Map<String, Entry> builtEntries = new HashMap<>();
+            for (Object[] row : rows) {
+                Tag tag = (Tag) row[0];
+                if (tag.getName() == null || tag.getName().isBlank()) continue;
+                insert(builtRoot, builtEntries, normalize(tag.getName()), ((Number) row[1]).intValue());
+            }
+
+            lock.writeLock().lock();
+            try {
+                root = builtRoot;
+                entries.clear();
+                entries.putAll(builtEntries);
+                // Updates carry count changes, not totals: one whose transaction committed just before the
+                // snapshot but was applied just after it counts twice. Counts only rank suggestions.
+                int replayed = replayAfterRebuild.size();
+                replayAfterRebuild.forEach(this::applyLocked);
+                if (replayed > 0) logger.info("Replayed {} tag suggest writes made during the rebuild", replayed);
+            } finally {
+                lock.writeLock().unlock();
+            }
+            ready = true;
+            logger.info("Tag suggest index built in {} ms: {} tags", System.currentTimeMillis() - started, rows.size());
+        } finally {
+            lock.writeLock().lock();
+            try {
+                replayAfterRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public List<Suggestion> suggest(String prefix, int limit) {
+        String key = normalize(prefix);
+        int k = Math.max(1, Math.min(limit, TOP_K));
+        lock.readLock().lock();
+        try {
+            Node node = root;
+            for (int i = 0; i < key.length() && node != null; i++) {
+                node = node.child(key.charAt(i));
+            }
+            if (node == null) return List.of();
+            List<Suggestion> result = new ArrayList<>(Math.min(k, node.top.length));
+            for (int i = 0; i < node.top.length && i < k; i++) {
+                result.add(new Suggestion(node.top[i].name, node.top[i].count));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // A newly created tag; its question count arrives through questionTagsChanged
+    public void add(String tagName) {
+        if (tagName == null || tagName.isBlank()) return;
+        afterCommit(new Update(normalize(tagName), Set.of(), Set.of()));
+    }
+
+    // A question was created, retagged or deleted
+    public void questionTagsChanged(Collection<String> oldTags, Collection<String> newTags) {
+        Set<String> before = normalizeAll(oldTags);
+        Set<String> after = normalizeAll(newTags);
+        Set<String> added = new HashSet<>(after);
+        added.removeAll(before);
+        Set<String> removed = new HashSet<>(before);
+        removed.removeAll(after);
+        if (added.isEmpty() && removed.isEmpty()) return;
+        afterCommit(new Update(null, added, removed));
+    }
+
+    private void afterCommit(Update update) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(update);
+                }
+            });
+        } else {
+            apply(update);
+        }
+    }
+
+    private void apply(Update update) {
+        lock.writeLock().lock();
+        try {
+            applyLocked(update);
+            if (replayAfterRebuild != null) replayAfterRebuild.add(update);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void applyLocked(Update update) {
+        if (update.createdTag() != null && !entries.containsKey(update.createdTag())) {
+            insert(root, entries, update.createdTag(), 0);
+        }
+        update.added().forEach(name -> adjustLocked(name, 1));
+        update.removed().forEach(name -> adjustLocked(name, -1));
+    }
+
+    private static void insert(Node root, Map<String, Entry> entries, String name, int count) {
+        Entry entry = new Entry(name, count);
+        entries.put(name, entry);
+        Node node = root;
+        offer(node, entry);
+        for (int i = 0; i < name.length(); i++) {
+            node = node.childOrCreate(name.charAt(i));
+            offer(node, entry);
+        }
+        node.entry = entry;
+    }
+
+    private void adjustLocked(String name, int delta) {
+        Entry entry = entries.get(name);
+        if (entry == null) {
+            if (delta > 0) insert(root, entries, name, delta);
+            return;
+        }
+        entry.count = Math.max(0, entry.count + delta);
+
+        List<Node> path = new ArrayList<>(name.length() + 1);
+        Node node = root;
+        path.add(node);
+        for (int i = 0; i < name.length() && node != null; i++) {
+            node = node.child(name.charAt(i));
+            if (node != null) path.add(node);
+        }
+        // Deepest first, so each node is recomputed from children that are already up to date
+        for (int i = path.size() - 1; i >= 0; i--) {
+            Node n = path.get(i);
+            boolean listed = indexOf(n.top, entry) >= 0;
+            if (delta > 0 || !listed || n.top.length < TOP_K) {
+                // Growing counts can only push the entry up; a shrinking entry outside a full list stays out
+                offer(n, entry);
+            } else {
+                // A listed entry shrank: something unlisted in the subtree may now outrank it
+                n.top = collectTop(n);
+            }
+        }
+    }
+
+    // Adds or re-ranks the entry in the node's top list, keeping at most TOP_K entries
+    private static void offer(Node node, Entry entry) {
+        Entry[] top = node.top;
+        int existing = indexOf(top, entry);
+        Entry[] candidates;
+        if (existing >= 0) {
+            candidates = top.clone();
+        } else {
+            if (top.length == TOP_K && BY_POPULARITY.compare(entry, top[TOP_K - 1]) >= 0) return;
+            candidates = Arrays.copyOf(top, top.length + 1);
+            candidates[top.length] = entry;
+        }
+        Arrays.sort(candidates, BY_POPULARITY);
+        node.top = candidates.length > TOP_K ? Arrays.copyOf(candidates, TOP_K) : candidates;
+    }
+
+    // The best of a subtree is among the node's own tag and its children's top lists
+    private static Entry[] collectTop(Node node) {
+        List<Entry> candidates = new ArrayList<>();
+        if (node.entry != null) candidates.add(node.entry);
+        for (Node child : node.children) {
+            candidates.addAll(Arrays.asList(child.top));
+        }
+        candidates.sort(BY_POPULARITY);
+        return candidates.subList(0, Math.min(TOP_K, candidates.size())).toArray(new Entry[0]);
+    }
+
+    private static int indexOf(Entry[] top, Entry entry) {
+        for (int i = 0; i < top.length; i++) {
+            if (top[i] == entry) return i;
+        }
+        return -1;
+    }
+
+    private static Set<String> normalizeAll(Collection<String> names) {
+        Set<String> normalized = new HashSet<>();
+        if (names == null) return normalized;
+        for (String name : names) {
+            if (name != null && !name.isBlank()) normalized.add(normalize(name));
+        }
+        return normalized;
+    }
+
+    private static String normalize(String name) {
+        return name == null ? "" : name.trim().toLowerCase(Locale.ROOT);
+    }
+}
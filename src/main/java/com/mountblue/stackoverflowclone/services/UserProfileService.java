@@ -27,6 +27,9 @@ public class UserProfileService {
     @Autowired
     private TagRepository tagRepository;
 
+    @Autowired
+    private ViewerSketchService viewerSketchService;
+
     public List<Question> getUserQuestions(Long userId) {
         return questionRepository.findByAuthorIdWithTags(userId);
     }
@@ -52,11 +55,9 @@ public class UserProfileService {
         return tagCountMap;
     }
 
-    public int calculatePeopleReached(Long userId) {
-        List<Question> questions = getUserQuestions(userId);
-        return questions.stream()
-                .mapToInt(question -> Math.toIntExact(question.getViewCount()))
-                .sum();
+    // Distinct viewers of any of the user's questions (estimated), rather than the sum of raw hits
+    public long calculatePeopleReached(Long userId) {
+        return viewerSketchService.peopleReached(userId);
     }
 }
 
@@ -28,6 +28,12 @@ public class UserService {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private ViewCountBuffer viewCountBuffer;
+
+    @Autowired
+    private ContentVersionService contentVersionService;
+
     public void register(String name, String email, String password, String confirmPassword) {
         // Normalize inputs
         String normalizedEmail = email == null ? null : email.trim().toLowerCase();
@@ -68,12 +74,13 @@ public class UserService {
                 .orElseThrow(() -> new NoSuchElementException("User not found with id: " + userId));
     }
 
-    @Transactional
+    // Buffered; written to the database in batches by ViewCountBuffer. Callers look the user up first.
     public void incrementProfileViewCount(Long userId) {
-        int updated = userRepository.incrementProfileViewCount(userId);
-        if (updated == 0) {
-            throw new NoSuchElementException("User not found with id: " + userId);
-        }
+        viewCountBuffer.profileViewed(userId);
+    }
+
+    public long getProfileViewCount(User user) {
+        return viewCountBuffer.profileViewsOf(user);
     }
 
     public Page<User> getAllUsers(Pageable pageable) {
@@ -158,15 +165,11 @@ public class UserService {
         return userRepository.existsByEmail(email);
     }
 
+    // Profile edits (e.g. the avatar) show next to the user's questions, so their pages get a new version
     @Transactional
     public User save(User user) {
-        return userRepository.save(user);
-    }
-
-    @Transactional
-    public void updateReputation(Long userId, int reputationChange) {
-        User user = findById(userId);
-        user.setReputation(user.getReputation() + reputationChange);
-        userRepository.save(user);
+        User saved = userRepository.save(user);
+        contentVersionService.usersChanged(List.of(saved.getId()));
+        return saved;
     }
 }
@@ -0,0 +1,134 @@
+package com.mountblue.stackoverflowclone.services;
+
+import com.mountblue.stackoverflowclone.models.Question;
+import com.mountblue.stackoverflowclone.models.User;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// Write-behind buffer for question and profile view counts. A page view only adds one to an in-memory
+// per-id counter; the aggregated deltas are written every few seconds (and on shutdown) with one
+// UPDATE ... FROM (VALUES ...) per table and chunk, instead of a row-locking UPDATE per request.
+// Displayed counts add the pending delta to the persisted value. Increments and the flush's take-out are
+// both single atomic map operations on the id, so no view is lost to a flush running at the same moment.
+// Each map is capped at max-pending ids between flushes; views of further ids are dropped and logged.
+@Component
+public class ViewCountBuffer {
+
+    private static final Logger logger = LoggerFactory.getLogger(ViewCountBuffer.class);
+    // Rows per UPDATE statement (two bind parameters each)
+    private static final int BATCH_ROWS = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int maxPending;
+    private final ConcurrentHashMap<Long, Long> questionViews = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, Long> profileViews = new ConcurrentHashMap<>();
+    private final LongAdder dropped = new LongAdder();
+
+    public ViewCountBuffer(JdbcTemplate jdbcTemplate,
+                           @Value("${app.views.max-pending:100000}") int maxPending) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.maxPending = Math.max(1, maxPending);
+    }
+
+    public void questionViewed(Long questionId) {
+        record(questionViews, questionId);
+    }
+
+    public void profileViewed(Long userId) {
+        record(profileViews, userId);
+    }
+
+    public long viewsOf(Question question) {
+        long persisted = question.getViewCount() == null ? 0 : question.getViewCount();
+        return persisted + pending(questionViews, question.getId());
+    }
+
+    public long profileViewsOf(User user) {
+        long persisted = user.getProfileViewCount() == null ? 0 : user.getProfileViewCount();
+        return persisted + pending(profileViews, user.getId());
+    }
+
+    @Scheduled(fixedDelayString = "${app.views.flush-interval-ms:5000}")
+    public synchronized void flush() {
+        flush(questionViews, "question", "view_count");
+        flush(profileViews, "users", "profile_view_count");
+        long droppedViews = dropped.sumThenReset();
+        if (droppedViews > 0) {
+            logger.warn("Dropped {} views since the last flush: more than {} ids were pending", droppedViews, maxPending);
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    private void record(ConcurrentHashMap<Long, Long> pending, Long id) {
+        if (id == null) return;
+        if (pending.size() >= maxPending && !pending.containsKey(id)) {
+            dropped.increment();
+            return;
+        }
+        pending.merge(id, 1L, Long::sum);
+    }
+
+    private void flush(ConcurrentHashMap<Long, Long> pending, String table, String column) {
+        if (pending.isEmpty()) return;
+        // Sorted by id so concurrent writers always lock rows in the same order
+        SortedMap<Long, Long> deltas = new TreeMap<>();
+        for (Long id : pending.keySet()) {
+            // remove is atomic with merge: a view is either in the returned delta or in a new entry
+            Long delta = pending.remove(id);
+            if (delta != null && delta > 0) deltas.put(id, delta);
+        }
+
+        List<Map.Entry<Long, Long>> rows = new ArrayList<>(deltas.entrySet());
+        for (int from = 0; from < rows.size(); from += BATCH_ROWS) {
+            List<Map.Entry<Long, Long>> chunk = rows.subList(from, Math.min(from + BATCH_ROWS, rows.size()));
+            try {
+                jdbcTemplate.update(updateSql(table, column, chunk.size()), bindArgs(chunk));
+            } catch (DataAccessException e) {
+                // Put the deltas back so the next flush retries them
+                logger.warn("Flushing {} {} deltas to {} failed, will retry", chunk.size(), column, table, e);
+                for (Map.Entry<Long, Long> row : chunk) {
+                    pending.merge(row.getKey(), row.getValue(), Long::sum);
+                }
+            }
+        }
+    }
+
+    private static String updateSql(String table, String column, int rows) {
+        StringBuilder sql = new StringBuilder("UPDATE ").append(table).append(" t SET ")
+                .append(column).append(" = COALESCE(t.").append(column).append(", 0) + v.delta FROM (VALUES ");
+        for (int i = 0; i < rows; i++) {
+            if (i > 0) sql.append(", ");
+            sql.append("(?, ?)");
+        }
+        return sql.append(") AS v(id, delta) WHERE t.id = v.id").toString();
+    }
+
+    private static Object[] bindArgs(List<Map.Entry<Long, Long>> rows) {
+        Object[] args = new Object[rows.size() * 2];
+        int i = 0;
+        for (Map.Entry<Long, Long> row : rows) {
+            args[i++] = row.getKey();
+            args[i++] = row.getValue();
+        }
+        return args;
+    }
+
+    private static long pending(Map<Long, Long> pending, Long id) {
+        Long delta = id == null ? null : pending.get(id);
+        return delta == null ? 0 : delta;
+    }
+}
@@ -0,0 +1,190 @@
+package com.mountblue.stackoverflowclone.services;
+
+import com.mountblue.stackoverflowclone.models.UserPrincipal;
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.http.HttpServletRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.security.Principal;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// Distinct viewers per question and per profile, as HyperLogLog sketches (see HyperLogLog for size and error).
+// Views first land in small in-memory sketches; the flush merges them into the stored registers, skipping
+// rows the new views did not change (repeat visitors). Reads merge stored and pending sketches.
+// Each pending sketch is 2 KB, so at most max-pending-sketches subjects are buffered between flushes; views of
+// further subjects are dropped and logged, as in ViewCountBuffer.
+@Service
+public class ViewerSketchService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ViewerSketchService.class);
+    private static final String QUESTION = "Q";
+    private static final String PROFILE = "P";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxPending;
+    private final ConcurrentHashMap<SketchKey, HyperLogLog> pending = new ConcurrentHashMap<>();
+    private final LongAdder dropped = new LongAdder();
+
+    public ViewerSketchService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                               @Value("${app.views.max-pending-sketches:10000}") int maxPending) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maxPending = Math.max(1, maxPending);
+    }
+
+    private record SketchKey(String subjectType, long subjectId) {
+    }
+
+    // Signed-in viewers by user id, anonymous ones by a hash of address and user agent
+    public static long viewerHash(Principal principal, HttpServletRequest request) {
+        if (principal instanceof Authentication auth && auth.getPrincipal() instanceof UserPrincipal user) {
+            return HyperLogLog.hash("u:" + user.getId());
+        }
+        if (principal != null) {
+            return HyperLogLog.hash("u:" + principal.getName());
+        }
+        String agent = request.getHeader("User-Agent");
+        return HyperLogLog.hash("a:" + request.getRemoteAddr() + "|" + (agent == null ? "" : agent));
+    }
+
+    public void questionViewed(Long questionId, long viewerHash) {
+        record(new SketchKey(QUESTION, questionId), viewerHash);
+    }
+
+    public void profileViewed(Long userId, long viewerHash) {
+        record(new SketchKey(PROFILE, userId), viewerHash);
+    }
+
+    public long uniqueQuestionViewers(Long questionId) {
+        return load(new SketchKey(QUESTION, questionId)).estimate();
+    }
+
+    public long uniqueProfileViewers(Long userId) {
+        return load(new SketchKey(PROFILE, userId)).estimate();
+    }
+
+    // Distinct viewers across all of the user's questions: a union of sketches, not a sum of counts
+    public long peopleReached(Long userId) {
+        HyperLogLog union = new HyperLogLog();
+        jdbcTemplate.query("""
+                SELECT s.registers FROM viewer_sketch s
+                JOIN question q ON q.id = s.subject_id
+                WHERE s.subject_type = 'Q' AND q.author_id = ?
+                """, rs -> {
+            union.merge(HyperLogLog.fromBytes(rs.getBytes(1)));
+        }, userId);
+        if (!pending.isEmpty()) {
+            for (Long questionId : jdbcTemplate.queryForList(
+                    "SELECT id FROM question WHERE author_id = ?", Long.class, userId)) {
+                HyperLogLog recent = pending.get(new SketchKey(QUESTION, questionId));
+                if (recent != null) union.merge(recent);
+            }
+        }
+        return union.estimate();
+    }
+
+    // Deletes the stored sketch in the caller's transaction; views still pending are dropped once it commits
+    public void questionRemoved(Long questionId) {
+        SketchKey key = new SketchKey(QUESTION, questionId);
+        jdbcTemplate.update("DELETE FROM viewer_sketch WHERE subject_type = ? AND subject_id = ?",
+                QUESTION, questionId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    pending.remove(key);
+                }
+            });
+        } else {
+            pending.remove(key);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.views.flush-interval-ms:5000}")
+    public synchronized void flush() {
+        long droppedViews = dropped.sumThenReset();
+        if (droppedViews > 0) {
+            logger.warn("Dropped {} unique-viewer views since the last flush: more than {} subjects were pending",
+                    droppedViews, maxPending);
+        }
+        if (pending.isEmpty()) return;
+        SortedMap<SketchKey, HyperLogLog> drained =
+                new TreeMap<>(Comparator.comparing(SketchKey::subjectType).thenComparingLong(SketchKey::subjectId));
+        for (SketchKey key : pending.keySet()) {
+            HyperLogLog sketch = pending.remove(key);
+            if (sketch != null) drained.put(key, sketch);
+        }
+        try {
+            int[] written = {0};
+            transactionTemplate.executeWithoutResult(status ->
+                    drained.forEach((key, sketch) -> written[0] += persist(key, sketch)));
+            logger.debug("Viewer sketches flushed: {} touched, {} changed", drained.size(), written[0]);
+        } catch (RuntimeException e) {
+            logger.warn("Flushing {} viewer sketches failed, will retry", drained.size(), e);
+            drained.forEach((key, sketch) -> pending.merge(key, sketch, (newer, older) -> {
+                newer.merge(older);
+                return newer;
+            }));
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    // Adds inside compute, so flush's pending.remove can never detach a sketch that is still being written to
+    private void record(SketchKey key, long viewerHash) {
+        if (pending.size() >= maxPending && !pending.containsKey(key)) {
+            dropped.increment();
+            return;
+        }
+        pending.compute(key, (k, sketch) -> {
+            if (sketch == null) sketch = new HyperLogLog();
+            sketch.add(viewerHash);
+            return sketch;
+        });
+    }
+
+    private HyperLogLog load(SketchKey key) {
+        HyperLogLog sketch = HyperLogLog.fromBytes(stored(key, false));
+        HyperLogLog recent = pending.get(key);
+        if (recent != null) sketch.merge(recent);
+        return sketch;
+    }
+
+    private byte[] stored(SketchKey key, boolean forUpdate) {
+        List<byte[]> rows = jdbcTemplate.query(
+                "SELECT registers FROM viewer_sketch WHERE subject_type = ? AND subject_id = ?"
+                        + (forUpdate ? " FOR UPDATE" : ""),
+                (rs, i) -> rs.getBytes(1), key.subjectType(), key.subjectId());
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    private int persist(SketchKey key, HyperLogLog recent) {
+        byte[] current = stored(key, true);
+        HyperLogLog merged = HyperLogLog.fromBytes(current);
+        if (!merged.merge(recent) && current != null) return 0;
+        // A flush already holding views for a question or user deleted meanwhile must not recreate its row
+        String subjectTable = QUESTION.equals(key.subjectType()) ? "question" : "users";
+        return jdbcTemplate.update("""
+                INSERT INTO viewer_sketch (subject_type, subject_id, registers, created_at, updated_at)
+                SELECT ?, ?, ?, now(), now() WHERE EXISTS (SELECT 1 FROM %s WHERE id = ?)
+                ON CONFLICT (subject_type, subject_id)
+                DO UPDATE SET registers = EXCLUDED.registers, updated_at = now()
+                """.formatted(subjectTable), key.subjectType(), key.subjectId(), merged.toBytes(), key.subjectId());
+    }
+}
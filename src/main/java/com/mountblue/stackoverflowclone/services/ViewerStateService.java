@@ -0,0 +1,98 @@
+package com.mountblue.stackoverflowclone.services;
+
+import com.mountblue.stackoverflowclone.repositories.FollowRepository;
+import com.mountblue.stackoverflowclone.repositories.VoteRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+
+// What the signed-in viewer has done to the posts on a page: their vote on each question and answer shown,
+// and which of the questions they follow. One query for the votes and one for the follows, however many posts
+// the page has. The answers are kept as sorted primitive arrays and looked up by binary search from templates.
+@Service
+public class ViewerStateService {
+
+    private final VoteRepository voteRepository;
+    private final FollowRepository followRepository;
+
+    public ViewerStateService(VoteRepository voteRepository, FollowRepository followRepository) {
+        this.voteRepository = voteRepository;
+        this.followRepository = followRepository;
+    }
+
+    // Post id -> vote value; a post that is not in the map has no vote
+    public record VoteMap(long[] postIds, int[] values) {
+
+        static final VoteMap EMPTY = new VoteMap(new long[0], new int[0]);
+
+        public int get(long postId) {
+            int i = Arrays.binarySearch(postIds, postId);
+            return i >= 0 ? values[i] : 0;
+        }
+
+        static VoteMap of(SortedMap<Long, Integer> votes) {
+            if (votes.isEmpty()) return EMPTY;
+            long[] ids = new long[votes.size()];
+            int[] values = new int[votes.size()];
+            int i = 0;
+            for (Map.Entry<Long, Integer> vote : votes.entrySet()) {
+                ids[i] = vote.getKey();
+                values[i++] = vote.getValue();
+            }
+            return new VoteMap(ids, values);
+        }
+    }
+
+    // followedQuestionIds is sorted
+    public record ViewerState(VoteMap questionVotes, VoteMap answerVotes, long[] followedQuestionIds) {
+
+        public static final ViewerState ANONYMOUS = new ViewerState(VoteMap.EMPTY, VoteMap.EMPTY, new long[0]);
+
+        // +1, -1, or 0 when the viewer has not voted on the question
+        public int questionVote(long questionId) {
+            return questionVotes.get(questionId);
+        }
+
+        public int answerVote(long answerId) {
+            return answerVotes.get(answerId);
+        }
+
+        public boolean followsQuestion(long questionId) {
+            return Arrays.binarySearch(followedQuestionIds, questionId) >= 0;
+        }
+    }
+
+    // Votes on the questions and answers, and follows of the questions
+    @Transactional(readOnly = true)
+    public ViewerState forPosts(Long userId, Collection<Long> questionIds, Collection<Long> answerIds) {
+        if (userId == null || (questionIds.isEmpty() && answerIds.isEmpty())) return ViewerState.ANONYMOUS;
+        long[] followed = questionIds.isEmpty() ? new long[0]
+                : followRepository.findObjectIdsByUserAmong(userId, "question", questionIds).stream()
+                        .mapToLong(Long::longValue).sorted().toArray();
+        return votes(userId, questionIds, answerIds, followed);
+    }
+
+    // Votes only, for lists that do not show the follow state
+    @Transactional(readOnly = true)
+    public ViewerState forQuestionList(Long userId, Collection<Long> questionIds) {
+        if (userId == null || questionIds.isEmpty()) return ViewerState.ANONYMOUS;
+        return votes(userId, questionIds, List.of(), new long[0]);
+    }
+
+    private ViewerState votes(long userId, Collection<Long> questionIds, Collection<Long> answerIds, long[] followed) {
+        SortedMap<Long, Integer> questionVotes = new TreeMap<>();
+        SortedMap<Long, Integer> answerVotes = new TreeMap<>();
+        // IN () is not valid SQL, and no post has id 0
+        for (Object[] vote : voteRepository.findValuesByUserAmong(userId, orNone(questionIds), orNone(answerIds))) {
+            long postId = ((Number) vote[1]).longValue();
+            int value = ((Number) vote[2]).intValue();
+            (VoteService.QUESTION.equals(vote[0]) ? questionVotes : answerVotes).put(postId, value);
+        }
+        return new ViewerState(VoteMap.of(questionVotes), VoteMap.of(answerVotes), followed);
+    }
+
+    private static Collection<Long> orNone(Collection<Long> ids) {
+        return ids.isEmpty() ? List.of(0L) : ids;
+    }
+}
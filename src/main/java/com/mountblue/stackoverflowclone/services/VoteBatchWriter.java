@@ -0,0 +1,383 @@
+package com.mountblue.stackoverflowclone.services;
+
+import com.mountblue.stackoverflowclone.repositories.QuestionRepository;
+import com.mountblue.stackoverflowclone.services.VoteService.VoteResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+// Group commit for votes (app.votes.ingestion=batched). Request threads put their vote on a bounded queue and
+// wait; a single writer thread takes whatever has queued up, up to max-size votes or max-delay-ms after the
+// first one, and writes it in one transaction: the vote rows the batch touches are read and locked, the votes
+// are replayed on top of them in arrival order (a user clicking the same arrow twice cancels out in memory),
+// and only the net changes are written, as one multi-row upsert, one delete and one score update per post
+// table, followed by the authors' reputation events. Each caller's future completes with its own before/after
+// value once that transaction has committed. If the batch fails, its votes are retried one transaction each, so
+// one bad vote only fails its own caller. Reading before writing is safe because this thread is the only writer
+// of votes while batching is enabled. The writer starts before the web server and stops after it, writing what
+// is still queued on the way out.
+@Component
+@ConditionalOnProperty(name = "app.votes.ingestion", havingValue = "batched")
+public class VoteBatchWriter implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(VoteBatchWriter.class);
+    // Keeps the largest statement (4 bind parameters per vote) well below PostgreSQL's 65535 limit
+    private static final int MAX_BATCH_LIMIT = 5000;
+    // Below the web server's lifecycle phases: started before requests arrive, stopped after they have drained
+    private static final int PHASE = SmartLifecycle.DEFAULT_PHASE - 4096;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final QuestionRepository questionRepository;
+    private final ReputationService reputationService;
+    private final ContentVersionService contentVersionService;
+    private final TransactionTemplate transactionTemplate;
+    private final BlockingQueue<PendingVote> queue;
+    private final int maxBatch;
+    private final long maxDelayNanos;
+    private final long offerTimeoutMs;
+    private Thread writer;
+    private volatile boolean running = false;
+
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder votes = new LongAdder();
+    private final LongAdder rowWrites = new LongAdder();
+    private final LongAdder failedBatches = new LongAdder();
+    private final LongAdder failedVotes = new LongAdder();
+    private final AtomicInteger largestBatch = new AtomicInteger();
+
+    public VoteBatchWriter(JdbcTemplate jdbcTemplate,
+                           QuestionRepository questionRepository,
+                           ReputationService reputationService,
+                           ContentVersionService contentVersionService,
+                           PlatformTransactionManager transactionManager,
+                           @Value("${app.votes.batch.queue-capacity:10000}") int queueCapacity,
+                           @Value("${app.votes.batch.max-size:500}") int maxBatch,
+                           @Value("${app.votes.batch.max-delay-ms:5}") long maxDelayMs,
+                           @Value("${app.votes.batch.offer-timeout-ms:1000}") long offerTimeoutMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.questionRepository = questionRepository;
+        this.reputationService = reputationService;
+        this.contentVersionService = contentVersionService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+        this.maxBatch = Math.max(1, Math.min(maxBatch, MAX_BATCH_LIMIT));
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, maxDelayMs));
+        this.offerTimeoutMs = Math.max(0, offerTimeoutMs);
+    }
+
+    // questionId is the answer's question for answer votes, null for question votes
+    private record PendingVote(long userId, String postType, long postId, Long questionId, int value,
+                               CompletableFuture<VoteResult> result) {
+
+        VoteKey key() {
+            return new VoteKey(userId, postType, postId);
+        }
+    }
+
+    private record VoteKey(long userId, String postType, long postId) {
+    }
+
+    public record Stats(long batches, long votes, long rowWrites, long failedBatches, long failedVotes,
+                        int largestBatch, double averageBatch, int queued) {
+    }
+
+    // A full queue pushes back on the caller for up to offer-timeout-ms, then fails the vote
+    public CompletableFuture<VoteResult> submit(long userId, String postType, long postId, Long questionId, int value) {
+        PendingVote vote = new PendingVote(userId, postType, postId, questionId, value, new CompletableFuture<>());
+        try {
+            if (!running || !queue.offer(vote, offerTimeoutMs, TimeUnit.MILLISECONDS)) {
+                return CompletableFuture.failedFuture(new IllegalStateException("Too many votes right now, please try again"));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return CompletableFuture.failedFuture(e);
+        }
+        return vote.result();
+    }
+
+    public Stats getStats() {
+        long batchCount = batches.sum();
+        long voteCount = votes.sum();
+        return new Stats(batchCount, voteCount, rowWrites.sum(), failedBatches.sum(), failedVotes.sum(),
+                largestBatch.get(), batchCount == 0 ? 0 : (double) voteCount / batchCount, queue.size());
+    }
+
+    @Override
+    public synchronized void start() {
+        if (running) return;
+        running = true;
+        writer = new Thread(this::run, "vote-batch-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    // New votes are refused from here on; what is already queued is written before the writer exits
+    @Override
+    public synchronized void stop() {
+        if (!running) return;
+        running = false;
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        PendingVote left;
+        while ((left = queue.poll()) != null) {
+            left.result().completeExceptionally(new IllegalStateException("Vote writer has stopped"));
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    private void run() {
+        List<PendingVote> batch = new ArrayList<>(maxBatch);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingVote first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+                batch.add(first);
+                long deadline = System.nanoTime() + maxDelayNanos;
+                while (batch.size() < maxBatch) {
+                    if (queue.drainTo(batch, maxBatch - batch.size()) > 0) continue;
+                    long wait = deadline - System.nanoTime();
+                    if (wait <= 0) break;
+                    PendingVote next = queue.poll(wait, TimeUnit.NANOSECONDS);
+                    if (next == null) break;
+                    batch.add(next);
+                }
+                write(batch);
+            } catch (InterruptedException e) {
+                for (PendingVote vote : batch) vote.result().completeExceptionally(e);
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Throwable e) {
+                // Whatever went wrong belongs to this batch; the writer keeps serving the next one
+                logger.error("Vote writer failed on a batch of {} votes", batch.size(), e);
+                for (PendingVote vote : batch) vote.result().completeExceptionally(e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(List<PendingVote> batch) {
+        List<VoteResult> results;
+        try {
+            results = transactionTemplate.execute(status -> apply(batch));
+        } catch (RuntimeException e) {
+            failedBatches.increment();
+            if (batch.size() == 1) {
+                failedVotes.increment();
+                batch.get(0).result().completeExceptionally(e);
+                return;
+            }
+            logger.warn("Writing a batch of {} votes failed, retrying them one by one", batch.size(), e);
+            for (PendingVote vote : batch) writeAlone(vote);
+            return;
+        }
+        batches.increment();
+        votes.add(batch.size());
+        largestBatch.accumulateAndGet(batch.size(), Math::max);
+        for (int i = 0; i < batch.size(); i++) {
+            batch.get(i).result().complete(results.get(i));
+        }
+    }
+
+    // After a failed batch: the vote in a transaction of its own, so only a vote that fails by itself is lost
+    private void writeAlone(PendingVote vote) {
+        try {
+            VoteResult result = transactionTemplate.execute(status -> apply(List.of(vote))).get(0);
+            batches.increment();
+            votes.increment();
+            vote.result().complete(result);
+        } catch (RuntimeException e) {
+            failedVotes.increment();
+            logger.warn("Vote by user {} on {} {} failed", vote.userId(), vote.postType(), vote.postId(), e);
+            vote.result().completeExceptionally(e);
+        }
+    }
+
+    // Runs inside the batch transaction; returns one result per vote, in batch order
+    private List<VoteResult> apply(List<PendingVote> batch) {
+        Map<VoteKey, Integer> stored = lockStored(batch);
+        Map<VoteKey, Integer> current = new LinkedHashMap<>();
+        Map<Long, Long> questionOfAnswer = new HashMap<>();
+        List<VoteResult> results = new ArrayList<>(batch.size());
+        for (PendingVote vote : batch) {
+            VoteKey key = vote.key();
+            int previous = current.containsKey(key) ? current.get(key) : stored.getOrDefault(key, 0);
+            int next = previous == vote.value() ? 0 : vote.value();
+            current.put(key, next);
+            results.add(new VoteResult(previous, next));
+            if (vote.questionId() != null) questionOfAnswer.put(vote.postId(), vote.questionId());
+        }
+
+        List<Map.Entry<VoteKey, Integer>> upserts = new ArrayList<>();
+        List<VoteKey> deletes = new ArrayList<>();
+        Map<VoteKey, VoteResult> netChanges = new LinkedHashMap<>();
+        // Sorted by id so the post rows are locked in the same order as other multi-row writers
+        SortedMap<Long, int[]> questionDeltas = new TreeMap<>();
+        SortedMap<Long, int[]> answerDeltas = new TreeMap<>();
+        for (Map.Entry<VoteKey, Integer> entry : current.entrySet()) {
+            VoteKey key = entry.getKey();
+            VoteResult net = new VoteResult(stored.getOrDefault(key, 0), entry.getValue());
+            if (net.scoreDelta() == 0) continue;
+            netChanges.put(key, net);
+            if (net.newValue() == 0) {
+                deletes.add(key);
+            } else {
+                upserts.add(entry);
+            }
+            int[] delta = (VoteService.QUESTION.equals(key.postType()) ? questionDeltas : answerDeltas)
+                    .computeIfAbsent(key.postId(), id -> new int[3]);
+            delta[0] += net.scoreDelta();
+            delta[1] += net.upvoteDelta();
+            delta[2] += net.downvoteDelta();
+        }
+        questionDeltas.values().removeIf(delta -> delta[0] == 0 && delta[1] == 0 && delta[2] == 0);
+        answerDeltas.values().removeIf(delta -> delta[0] == 0);
+
+        upsertVotes(upserts);
+        deleteVotes(deletes);
+        updateQuestionScores(questionDeltas);
+        updateAnswerScores(answerDeltas);
+        SortedSet<Long> answeredQuestions = new TreeSet<>(answerDeltas.keySet().stream().map(questionOfAnswer::get).toList());
+        answeredQuestions.forEach(questionRepository::refreshAnswerStats);
+        questionDeltas.keySet().forEach(contentVersionService::questionChanged);
+        answeredQuestions.forEach(contentVersionService::questionChanged);
+        recordReputation(netChanges);
+        rowWrites.add(upserts.size() + deletes.size());
+        return results;
+    }
+
+    // One set of events per net vote change, for the post's author; votes on your own posts earn nothing
+    private void recordReputation(Map<VoteKey, VoteResult> netChanges) {
+        if (netChanges.isEmpty()) return;
+        Map<Long, Long> questionAuthors = authorsOf("question", netChanges.keySet(), VoteService.QUESTION);
+        Map<Long, Long> answerAuthors = authorsOf("answers", netChanges.keySet(), VoteService.ANSWER);
+        List<ReputationService.Change> changes = new ArrayList<>();
+        for (Map.Entry<VoteKey, VoteResult> change : netChanges.entrySet()) {
+            VoteKey key = change.getKey();
+            Long authorId = (VoteService.QUESTION.equals(key.postType()) ? questionAuthors : answerAuthors).get(key.postId());
+            if (authorId == null || authorId == key.userId()) continue;
+            changes.addAll(ReputationService.voteChanges(authorId, key.postType(), key.postId(), change.getValue()));
+        }
+        reputationService.record(changes);
+    }
+
+    private Map<Long, Long> authorsOf(String table, Collection<VoteKey> keys, String postType) {
+        Set<Long> ids = new TreeSet<>();
+        for (VoteKey key : keys) {
+            if (postType.equals(key.postType())) ids.add(key.postId());
+        }
+        Map<Long, Long> authors = new HashMap<>();
+        if (ids.isEmpty()) return authors;
+        jdbcTemplate.query("SELECT id, author_id FROM " + table + " WHERE id IN (" + tuples(ids.size(), "?") + ")",
+                rs -> {
+                    authors.put(rs.getLong("id"), rs.getLong("author_id"));
+                }, ids.toArray());
+        return authors;
+    }
+
+    private Map<VoteKey, Integer> lockStored(List<PendingVote> batch) {
+        Set<VoteKey> keys = new LinkedHashSet<>();
+        for (PendingVote vote : batch) keys.add(vote.key());
+        String sql = "SELECT user_id, post_id, post_type, vote_value FROM votes WHERE (user_id, post_id, post_type) IN ("
+                + tuples(keys.size(), "(?, ?, ?)") + ") ORDER BY id FOR UPDATE";
+        Map<VoteKey, Integer> stored = new HashMap<>();
+        jdbcTemplate.query(sql, rs -> {
+            stored.put(new VoteKey(rs.getLong("user_id"), rs.getString("post_type"), rs.getLong("post_id")),
+                    rs.getInt("vote_value"));
+        }, keyArgs(keys));
+        return stored;
+    }
+
+    private void upsertVotes(List<Map.Entry<VoteKey, Integer>> rows) {
+        if (rows.isEmpty()) return;
+        String sql = "INSERT INTO votes (user_id, post_id, post_type, vote_value, created_at, updated_at) VALUES "
+                + tuples(rows.size(), "(?, ?, ?, ?, now(), now())")
+                + " ON CONFLICT (user_id, post_id, post_type) DO UPDATE SET vote_value = EXCLUDED.vote_value, updated_at = now()";
+        Object[] args = new Object[rows.size() * 4];
+        int i = 0;
+        for (Map.Entry<VoteKey, Integer> row : rows) {
+            args[i++] = row.getKey().userId();
+            args[i++] = row.getKey().postId();
+            args[i++] = row.getKey().postType();
+            args[i++] = row.getValue();
+        }
+        jdbcTemplate.update(sql, args);
+    }
+
+    private void deleteVotes(List<VoteKey> keys) {
+        if (keys.isEmpty()) return;
+        jdbcTemplate.update("DELETE FROM votes WHERE (user_id, post_id, post_type) IN (" + tuples(keys.size(), "(?, ?, ?)") + ")",
+                keyArgs(keys));
+    }
+
+    private void updateQuestionScores(SortedMap<Long, int[]> deltas) {
+        if (deltas.isEmpty()) return;
+        String sql = "UPDATE question q SET score = q.score + v.score, upvote = q.upvote + v.up, downvote = q.downvote + v.down"
+                + " FROM (VALUES " + tuples(deltas.size(), "(?, ?, ?, ?)") + ") AS v(id, score, up, down) WHERE q.id = v.id";
+        Object[] args = new Object[deltas.size() * 4];
+        int i = 0;
+        for (Map.Entry<Long, int[]> delta : deltas.entrySet()) {
+            args[i++] = delta.getKey();
+            args[i++] = delta.getValue()[0];
+            args[i++] = delta.getValue()[1];
+            args[i++] = delta.getValue()[2];
+        }
+        jdbcTemplate.update(sql, args);
+    }
+
+    private void updateAnswerScores(SortedMap<Long, int[]> deltas) {
+        if (deltas.isEmpty()) return;
+        String sql = "UPDATE answers a SET score = a.score + v.score FROM (VALUES " + tuples(deltas.size(), "(?, ?)")
+                + ") AS v(id, score) WHERE a.id = v.id";
+        Object[] args = new Object[deltas.size() * 2];
+        int i = 0;
+        for (Map.Entry<Long, int[]> delta : deltas.entrySet()) {
+            args[i++] = delta.getKey();
+            args[i++] = delta.getValue()[0];
+        }
+        jdbcTemplate.update(sql, args);
+    }
+
+    private static String tuples(int rows, String tuple) {
+        StringJoiner joined = new StringJoiner(", ");
+        for (int i = 0; i < rows; i++) joined.add(tuple);
+        return joined.toString();
+    }
+
+    private static Object[] keyArgs(Collection<VoteKey> keys) {
+        Object[] args = new Object[keys.size() * 3];
+        int i = 0;
+        for (VoteKey key : keys) {
+            args[i++] = key.userId();
+            args[i++] = key.postId();
+            args[i++] = key.postType();
+        }
+        return args;
+    }
+}
@@ -0,0 +1,219 @@
+package com.mountblue.stackoverflowclone.services;
+
+import com.mountblue.stackoverflowclone.repositories.QuestionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Vote casting for questions and answers in two statements and without reading the post: one upsert of the
+// (user, post) vote row against the unique index, and one in-place score update with the resulting delta.
+// Concurrent votes on a hot post therefore serialize on row locks inside the database instead of racing on
+// a score read into Java. Clicking the same arrow again withdraws the vote, the other arrow flips it.
+// With app.votes.ingestion=batched the votes are handed to VoteBatchWriter instead, which commits them in
+// groups; either way the call returns once the vote is committed, together with the answer statistics of
+// the question and the post author's reputation events. Latencies of the last few thousand votes are kept
+// for the stats endpoint.
+@Service
+public class VoteService {
+
+    private static final Logger logger = LoggerFactory.getLogger(VoteService.class);
+
+    public static final String QUESTION = "question";
+    public static final String ANSWER = "answer";
+
+    // A repeated vote is stored as 0 and deleted right after, so a stored row is always +1 or -1. That makes
+    // the previous value recoverable from the new one: inserted -> 0, now 0 -> same as cast, else the opposite.
+    private static final String UPSERT_SQL = """
+            INSERT INTO votes (user_id, post_id, post_type, vote_value, created_at, updated_at)
+            VALUES (?, ?, ?, ?, now(), now())
+            ON CONFLICT (user_id, post_id, post_type) DO UPDATE
+            SET vote_value = CASE WHEN votes.vote_value = EXCLUDED.vote_value THEN 0 ELSE EXCLUDED.vote_value END,
+                updated_at = now()
+            RETURNING id, vote_value, (xmax = 0) AS inserted
+            """;
+
+    private static final int LATENCY_SAMPLES = 4096;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final QuestionRepository questionRepository;
+    private final ReputationService reputationService;
+    private final ContentVersionService contentVersionService;
+    private final TransactionTemplate transactionTemplate;
+    // Null unless app.votes.ingestion=batched
+    private final VoteBatchWriter batchWriter;
+    private final long batchWaitMs;
+    private final long[] latencies = new long[LATENCY_SAMPLES];
+    private final AtomicLong recorded = new AtomicLong();
+
+    public VoteService(JdbcTemplate jdbcTemplate,
+                       QuestionRepository questionRepository,
+                       ReputationService reputationService,
+                       ContentVersionService contentVersionService,
+                       PlatformTransactionManager transactionManager,
+                       ObjectProvider<VoteBatchWriter> batchWriter,
+                       @Value("${app.votes.batch.wait-timeout-ms:10000}") long batchWaitMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.questionRepository = questionRepository;
+        this.reputationService = reputationService;
+        this.contentVersionService = contentVersionService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchWriter = batchWriter.getIfAvailable();
+        this.batchWaitMs = batchWaitMs;
+    }
+
+    public record VoteResult(int previousValue, int newValue) {
+
+        public int scoreDelta() {
+            return newValue - previousValue;
+        }
+
+        public int upvoteDelta() {
+            return (newValue == 1 ? 1 : 0) - (previousValue == 1 ? 1 : 0);
+        }
+
+        public int downvoteDelta() {
+            return (newValue == -1 ? 1 : 0) - (previousValue == -1 ? 1 : 0);
+        }
+    }
+
+    // Latencies are from the call until the vote is committed, over the last LATENCY_SAMPLES votes
+    public record Stats(String ingestion, long votes, double p50Millis, double p99Millis, VoteBatchWriter.Stats batches) {
+    }
+
+    // The upsert needs the unique index. Rows left over from before it existed are collapsed to the latest
+    // vote per (user, post), and zero-valued rows are dropped so the invariant above holds.
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureSchema() {
+        int duplicates = jdbcTemplate.update("""
+                DELETE FROM votes v
+                USING votes newer
+                WHERE newer.user_id = v.user_id AND newer.post_id = v.post_id AND newer.post_type = v.post_type
+                  AND newer.id > v.id
+                """);
+        int zeros = jdbcTemplate.update("DELETE FROM votes WHERE vote_value = 0");
+        jdbcTemplate.execute("CREATE UNIQUE INDEX IF NOT EXISTS uk_votes_user_post ON votes (user_id, post_id, post_type)");
+        if (duplicates + zeros > 0) {
+            logger.info("Removed {} duplicate and {} empty vote rows", duplicates, zeros);
+        }
+    }
+
+    // choice is "upvote" or anything else for a downvote
+    public VoteResult voteQuestion(long userId, long questionId, String choice) {
+        long started = System.nanoTime();
+        VoteResult result = batchWriter != null
+                ? await(batchWriter.submit(userId, QUESTION, questionId, null, valueOf(choice)))
+                : transactionTemplate.execute(status -> castQuestionVote(userId, questionId, valueOf(choice)));
+        recordLatency(started);
+        return result;
+    }
+
+    public VoteResult voteAnswer(long userId, long answerId, long questionId, String choice) {
+        long started = System.nanoTime();
+        VoteResult result = batchWriter != null
+                ? await(batchWriter.submit(userId, ANSWER, answerId, questionId, valueOf(choice)))
+                : transactionTemplate.execute(status -> castAnswerVote(userId, answerId, questionId, valueOf(choice)));
+        recordLatency(started);
+        return result;
+    }
+
+    public Stats getStats() {
+        int samples = (int) Math.min(recorded.get(), LATENCY_SAMPLES);
+        long[] sorted = Arrays.copyOf(latencies, samples);
+        Arrays.sort(sorted);
+        return new Stats(batchWriter != null ? "batched" : "direct", recorded.get(),
+                percentileMillis(sorted, 0.50), percentileMillis(sorted, 0.99),
+                batchWriter != null ? batchWriter.getStats() : null);
+    }
+
+    private VoteResult castQuestionVote(long userId, long questionId, int value) {
+        VoteResult result = castVote(userId, QUESTION, questionId, value);
+        if (result.scoreDelta() != 0) {
+            List<Long> author = jdbcTemplate.queryForList("""
+                    UPDATE question
+                    SET score = score + ?, upvote = upvote + ?, downvote = downvote + ?
+                    WHERE id = ?
+                    RETURNING author_id
+                    """, Long.class, result.scoreDelta(), result.upvoteDelta(), result.downvoteDelta(), questionId);
+            contentVersionService.questionChanged(questionId);
+            recordReputation(userId, author, QUESTION, questionId, result);
+        }
+        return result;
+    }
+
+    private VoteResult castAnswerVote(long userId, long answerId, long questionId, int value) {
+        VoteResult result = castVote(userId, ANSWER, answerId, value);
+        if (result.scoreDelta() != 0) {
+            List<Long> author = jdbcTemplate.queryForList("UPDATE answers SET score = score + ? WHERE id = ? RETURNING author_id",
+                    Long.class, result.scoreDelta(), answerId);
+            questionRepository.refreshAnswerStats(questionId);
+            contentVersionService.questionChanged(questionId);
+            recordReputation(userId, author, ANSWER, answerId, result);
+        }
+        return result;
+    }
+
+    // Votes on your own posts do not change your reputation
+    private void recordReputation(long voterId, List<Long> author, String postType, long postId, VoteResult result) {
+        if (author.isEmpty() || author.get(0) == voterId) return;
+        reputationService.record(ReputationService.voteChanges(author.get(0), postType, postId, result));
+    }
+
+    private VoteResult castVote(long userId, String postType, long postId, int value) {
+        Object[] row = jdbcTemplate.queryForObject(UPSERT_SQL,
+                (rs, i) -> new Object[]{rs.getLong("id"), rs.getInt("vote_value"), rs.getBoolean("inserted")},
+                userId, postId, postType, value);
+        long voteId = (Long) row[0];
+        int stored = (Integer) row[1];
+        boolean inserted = (Boolean) row[2];
+
+        if (inserted) return new VoteResult(0, value);
+        if (stored == 0) {
+            jdbcTemplate.update("DELETE FROM votes WHERE id = ?", voteId);
+            return new VoteResult(value, 0);
+        }
+        return new VoteResult(-value, value);
+    }
+
+    private VoteResult await(CompletableFuture<VoteResult> pending) {
+        try {
+            return pending.get(batchWaitMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("Timed out waiting for the vote to be saved", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the vote to be saved", e);
+        }
+    }
+
+    // Racing writers may overwrite each other's slot; the samples only feed approximate percentiles
+    private void recordLatency(long startedNanos) {
+        latencies[(int) (recorded.getAndIncrement() % LATENCY_SAMPLES)] = System.nanoTime() - startedNanos;
+    }
+
+    private static double percentileMillis(long[] sorted, double percentile) {
+        if (sorted.length == 0) return 0;
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1_000_000.0;
+    }
+
+    private static int valueOf(String choice) {
+        return "upvote".equals(choice) ? 1 : -1;
+    }
+}
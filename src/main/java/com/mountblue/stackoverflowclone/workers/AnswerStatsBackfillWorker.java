@@ -0,0 +1,53 @@
+package com.mountblue.stackoverflowclone.workers;
+
+import com.mountblue.stackoverflowclone.repositories.QuestionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+// Backfills and repairs the denormalized answer statistics on question (answer_count, accepted_answer_id,
+// max_answer_score, is_answered). Walks question ids in fixed chunks, one short transaction per chunk,
+// and only rewrites rows whose stored values disagree with the answers table.
+@Component
+public class AnswerStatsBackfillWorker {
+    private static final Logger logger = LoggerFactory.getLogger(AnswerStatsBackfillWorker.class);
+
+    private final QuestionRepository questionRepository;
+    private final boolean runOnStartup;
+    private final int chunkSize;
+
+    public AnswerStatsBackfillWorker(QuestionRepository questionRepository,
+                                     @Value("${app.answer-stats.backfill-on-startup:true}") boolean runOnStartup,
+                                     @Value("${app.answer-stats.chunk-size:1000}") int chunkSize) {
+        this.questionRepository = questionRepository;
+        this.runOnStartup = runOnStartup;
+        this.chunkSize = chunkSize;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!runOnStartup) return;
+        Thread t = new Thread(this::repairAll, "answer-stats-backfill");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    public int repairAll() {
+        long started = System.currentTimeMillis();
+        long maxId = questionRepository.findMaxId();
+        int repaired = 0;
+        for (long afterId = 0; afterId < maxId; afterId += chunkSize) {
+            try {
+                repaired += questionRepository.repairAnswerStats(afterId, Math.min(afterId + chunkSize, maxId));
+            } catch (RuntimeException e) {
+                logger.error("Answer stats repair failed for question ids ({}, {}]", afterId, afterId + chunkSize, e);
+            }
+        }
+        logger.info("Answer stats checked up to question id {} in {} ms, {} rows repaired",
+                maxId, System.currentTimeMillis() - started, repaired);
+        return repaired;
+    }
+}
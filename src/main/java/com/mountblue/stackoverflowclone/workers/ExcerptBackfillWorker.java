@@ -0,0 +1,84 @@
+package com.mountblue.stackoverflowclone.workers;
+
+import com.mountblue.stackoverflowclone.repositories.QuestionRepository;
+import com.mountblue.stackoverflowclone.services.MarkdownRenderService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+// Fills question.excerpt (and body_html where it is missing too) for rows saved before those columns existed.
+// Walks ids upwards in fixed chunks, one short transaction per chunk; new and edited questions get both
+// columns on save, so a finished run never has to be repeated. Rows are read outside the write transaction; the
+// update skips any row that has gained an excerpt since, so a render of the old body never replaces an edit.
+@Component
+public class ExcerptBackfillWorker {
+    private static final Logger logger = LoggerFactory.getLogger(ExcerptBackfillWorker.class);
+
+    private final QuestionRepository questionRepository;
+    private final MarkdownRenderService markdownRenderService;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean runOnStartup;
+    private final int chunkSize;
+
+    public ExcerptBackfillWorker(QuestionRepository questionRepository,
+                                 MarkdownRenderService markdownRenderService,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${app.excerpt.backfill-on-startup:true}") boolean runOnStartup,
+                                 @Value("${app.excerpt.chunk-size:500}") int chunkSize) {
+        this.questionRepository = questionRepository;
+        this.markdownRenderService = markdownRenderService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.runOnStartup = runOnStartup;
+        this.chunkSize = chunkSize;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!runOnStartup) return;
+        Thread t = new Thread(this::backfillAll, "excerpt-backfill");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    public int backfillAll() {
+        long started = System.currentTimeMillis();
+        long afterId = 0;
+        int filled = 0;
+        while (true) {
+            List<Object[]> rows = questionRepository.findMissingExcerptAfter(afterId, PageRequest.of(0, chunkSize));
+            if (rows.isEmpty()) break;
+            afterId = (Long) rows.get(rows.size() - 1)[0];
+            try {
+                filled += fillChunk(rows);
+            } catch (RuntimeException e) {
+                logger.error("Excerpt backfill failed for question ids up to {}", afterId, e);
+            }
+            if (rows.size() < chunkSize) break;
+        }
+        logger.info("Question excerpts backfilled up to id {} in {} ms: {} rows",
+                afterId, System.currentTimeMillis() - started, filled);
+        return filled;
+    }
+
+    private int fillChunk(List<Object[]> rows) {
+        Integer updated = transactionTemplate.execute(status -> {
+            int count = 0;
+            for (Object[] row : rows) {
+                String bodyHtml = (String) row[1];
+                if (bodyHtml == null) bodyHtml = markdownRenderService.render((String) row[2]);
+                count += questionRepository.updateRenderedBody((Long) row[0], bodyHtml,
+                        markdownRenderService.excerptOf(bodyHtml));
+            }
+            return count;
+        });
+        return updated == null ? 0 : updated;
+    }
+}
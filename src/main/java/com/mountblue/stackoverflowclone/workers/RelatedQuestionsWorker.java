@@ -0,0 +1,77 @@
+package com.mountblue.stackoverflowclone.workers;
+
+import com.mountblue.stackoverflowclone.services.RelatedQuestionService;
+import com.mountblue.stackoverflowclone.services.TagBitmapIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+// Recomputes every question's related list after startup, once the tag bitmaps are built, so tag frequencies
+// (IDF) drift is picked up. Walks question ids in keyset chunks; the page keeps serving the stored lists meanwhile.
+@Component
+public class RelatedQuestionsWorker {
+    private static final Logger logger = LoggerFactory.getLogger(RelatedQuestionsWorker.class);
+
+    private final RelatedQuestionService relatedQuestionService;
+    private final TagBitmapIndex tagBitmapIndex;
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean runOnStartup;
+    private final int chunkSize;
+
+    public RelatedQuestionsWorker(RelatedQuestionService relatedQuestionService,
+                                  TagBitmapIndex tagBitmapIndex,
+                                  JdbcTemplate jdbcTemplate,
+                                  @Value("${app.related.rebuild-on-startup:true}") boolean runOnStartup,
+                                  @Value("${app.related.chunk-size:1000}") int chunkSize) {
+        this.relatedQuestionService = relatedQuestionService;
+        this.tagBitmapIndex = tagBitmapIndex;
+        this.jdbcTemplate = jdbcTemplate;
+        this.runOnStartup = runOnStartup;
+        this.chunkSize = chunkSize;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!runOnStartup) return;
+        Thread t = new Thread(this::rebuildAll, "related-questions-rebuild");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    public int rebuildAll() {
+        try {
+            while (!tagBitmapIndex.isReady()) {
+                Thread.sleep(500);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return 0;
+        }
+        long started = System.currentTimeMillis();
+        long afterId = 0;
+        int computed = 0;
+        while (true) {
+            List<Long> ids = jdbcTemplate.queryForList(
+                    "SELECT id FROM question WHERE id > ? ORDER BY id LIMIT ?", Long.class, afterId, chunkSize);
+            for (Long id : ids) {
+                try {
+                    relatedQuestionService.recompute(id);
+                    computed++;
+                } catch (RuntimeException e) {
+                    logger.error("Related questions failed for question {}", id, e);
+                }
+            }
+            if (ids.size() < chunkSize) break;
+            afterId = ids.get(ids.size() - 1);
+        }
+        logger.info("Related questions computed for {} questions in {} ms",
+                computed, System.currentTimeMillis() - started);
+        return computed;
+    }
+}
@@ -0,0 +1,57 @@
+package com.mountblue.stackoverflowclone.workers;
+
+import com.mountblue.stackoverflowclone.repositories.UserRepository;
+import com.mountblue.stackoverflowclone.services.ReputationService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+// Rebuilds users.reputation from the reputation_events ledger, e.g. after the points of an event type changed.
+// Walks user ids in fixed chunks, one short transaction per chunk, and only rewrites users whose stored
+// reputation differs from the ledger. Off by default: users without events are reset to 0.
+@Component
+public class ReputationRecomputeWorker {
+    private static final Logger logger = LoggerFactory.getLogger(ReputationRecomputeWorker.class);
+
+    private final UserRepository userRepository;
+    private final ReputationService reputationService;
+    private final boolean runOnStartup;
+    private final int chunkSize;
+
+    public ReputationRecomputeWorker(UserRepository userRepository,
+                                     ReputationService reputationService,
+                                     @Value("${app.reputation.recompute-on-startup:false}") boolean runOnStartup,
+                                     @Value("${app.reputation.chunk-size:1000}") int chunkSize) {
+        this.userRepository = userRepository;
+        this.reputationService = reputationService;
+        this.runOnStartup = runOnStartup;
+        this.chunkSize = Math.max(1, chunkSize);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!runOnStartup) return;
+        Thread t = new Thread(this::recomputeAll, "reputation-recompute");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    public int recomputeAll() {
+        long started = System.currentTimeMillis();
+        long maxId = userRepository.findMaxId();
+        int changed = 0;
+        for (long afterId = 0; afterId < maxId; afterId += chunkSize) {
+            try {
+                changed += reputationService.recompute(afterId, Math.min(afterId + chunkSize, maxId));
+            } catch (RuntimeException e) {
+                logger.error("Reputation recompute failed for user ids ({}, {}]", afterId, afterId + chunkSize, e);
+            }
+        }
+        logger.info("Reputation recomputed up to user id {} in {} ms, {} users changed",
+                maxId, System.currentTimeMillis() - started, changed);
+        return changed;
+    }
+}
@@ -0,0 +1,183 @@
+package com.mountblue.stackoverflowclone.workers;
+
+import com.mountblue.stackoverflowclone.repositories.QuestionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Repairs the vote counters on question (score, upvote, downvote) and answers (score) from the votes table.
+// Walks post ids in keyset chunks, one short transaction per chunk: the chunk's post rows are locked first, so
+// a vote in flight either committed before (and is counted) or waits and applies its delta on top of the
+// repaired value; then the vote totals of the chunk are compared with the counters and only the rows that
+// disagree are rewritten. The last post id done is saved in job_checkpoints in the same transaction, so a
+// restart resumes where the previous run stopped. Between chunks the worker sleeps at least as long as the
+// chunk took, so it never holds more than half of a connection's time.
+@Component
+public class VoteCounterReconciliationWorker {
+    private static final Logger logger = LoggerFactory.getLogger(VoteCounterReconciliationWorker.class);
+
+    private static final String CHECKPOINT_PREFIX = "vote-counters:";
+
+    private static final String REPAIR_QUESTIONS_SQL = """
+            UPDATE question q
+            SET score = t.score, upvote = t.upvote, downvote = t.downvote
+            FROM (SELECT q2.id,
+                         COALESCE(SUM(v.vote_value), 0) AS score,
+                         COUNT(v.id) FILTER (WHERE v.vote_value = 1) AS upvote,
+                         COUNT(v.id) FILTER (WHERE v.vote_value = -1) AS downvote
+                  FROM question q2
+                  LEFT JOIN votes v ON v.post_id = q2.id AND v.post_type = 'question'
+                  WHERE q2.id > ? AND q2.id <= ?
+                  GROUP BY q2.id) t
+            WHERE q.id = t.id
+              AND (q.score IS DISTINCT FROM t.score OR q.upvote IS DISTINCT FROM t.upvote
+                   OR q.downvote IS DISTINCT FROM t.downvote)
+            RETURNING q.id
+            """;
+
+    // Returns the question of each repaired answer, whose answer statistics depend on the scores
+    private static final String REPAIR_ANSWERS_SQL = """
+            UPDATE answers a
+            SET score = t.score
+            FROM (SELECT a2.id, COALESCE(SUM(v.vote_value), 0) AS score
+                  FROM answers a2
+                  LEFT JOIN votes v ON v.post_id = a2.id AND v.post_type = 'answer'
+                  WHERE a2.id > ? AND a2.id <= ?
+                  GROUP BY a2.id) t
+            WHERE a.id = t.id AND a.score IS DISTINCT FROM t.score
+            RETURNING a.question_id
+            """;
+
+    private record Table(String name, String repairSql) {
+    }
+
+    private static final List<Table> TABLES = List.of(
+            new Table("question", REPAIR_QUESTIONS_SQL),
+            new Table("answers", REPAIR_ANSWERS_SQL));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final QuestionRepository questionRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean runOnStartup;
+    private final int chunkSize;
+    private final long pauseMs;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public VoteCounterReconciliationWorker(JdbcTemplate jdbcTemplate,
+                                           QuestionRepository questionRepository,
+                                           PlatformTransactionManager transactionManager,
+                                           @Value("${app.vote-reconcile.on-startup:true}") boolean runOnStartup,
+                                           @Value("${app.vote-reconcile.chunk-size:500}") int chunkSize,
+                                           @Value("${app.vote-reconcile.pause-ms:50}") long pauseMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.questionRepository = questionRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.runOnStartup = runOnStartup;
+        this.chunkSize = Math.max(1, chunkSize);
+        this.pauseMs = Math.max(0, pauseMs);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        jdbcTemplate.execute("""
+                CREATE TABLE IF NOT EXISTS job_checkpoints (
+                    name VARCHAR(100) PRIMARY KEY,
+                    position BIGINT NOT NULL,
+                    updated_at TIMESTAMP NOT NULL DEFAULT now()
+                )
+                """);
+        if (!runOnStartup) return;
+        Thread t = new Thread(this::reconcileAll, "vote-counter-reconciliation");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    @Scheduled(cron = "${app.vote-reconcile.cron:0 30 3 * * *}")
+    public void scheduled() {
+        reconcileAll();
+    }
+
+    // Returns the number of repaired rows, or -1 when a run is already in progress
+    public int reconcileAll() {
+        if (!running.compareAndSet(false, true)) return -1;
+        try {
+            long started = System.currentTimeMillis();
+            int repaired = 0;
+            for (Table table : TABLES) {
+                repaired += reconcile(table);
+            }
+            logger.info("Vote counters reconciled in {} ms, {} rows repaired", System.currentTimeMillis() - started, repaired);
+            return repaired;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private int reconcile(Table table) {
+        String checkpoint = CHECKPOINT_PREFIX + table.name();
+        long afterId = jdbcTemplate.queryForList("SELECT position FROM job_checkpoints WHERE name = ?", Long.class, checkpoint)
+                .stream().findFirst().orElse(0L);
+        if (afterId > 0) logger.info("Resuming vote counter reconciliation of {} after id {}", table.name(), afterId);
+
+        int repaired = 0;
+        while (true) {
+            long chunkStarted = System.currentTimeMillis();
+            long from = afterId;
+            long[] chunk;
+            try {
+                chunk = transactionTemplate.execute(status -> repairChunk(table, from, checkpoint));
+            } catch (RuntimeException e) {
+                logger.error("Vote counter reconciliation of {} failed after id {}; will resume there next run",
+                        table.name(), from, e);
+                return repaired;
+            }
+            if (chunk[0] < 0) break;
+            afterId = chunk[0];
+            repaired += (int) chunk[1];
+            if (!pause(Math.max(pauseMs, System.currentTimeMillis() - chunkStarted))) return repaired;
+        }
+        // A finished pass starts from the beginning next time
+        jdbcTemplate.update("DELETE FROM job_checkpoints WHERE name = ?", checkpoint);
+        if (repaired > 0) logger.info("Repaired vote counters of {} rows in {}", repaired, table.name());
+        return repaired;
+    }
+
+    // Runs in the chunk transaction; returns {last id of the chunk or -1 when there is none, repaired rows}
+    private long[] repairChunk(Table table, long afterId, String checkpoint) {
+        List<Long> ids = jdbcTemplate.queryForList("SELECT id FROM " + table.name()
+                + " WHERE id > ? ORDER BY id LIMIT ? FOR UPDATE", Long.class, afterId, chunkSize);
+        if (ids.isEmpty()) return new long[]{-1, 0};
+        long lastId = ids.get(ids.size() - 1);
+
+        List<Long> repairedRows = jdbcTemplate.queryForList(table.repairSql(), Long.class, afterId, lastId);
+        if (table.name().equals("answers")) {
+            new TreeSet<>(repairedRows).forEach(questionRepository::refreshAnswerStats);
+        }
+        jdbcTemplate.update("""
+                INSERT INTO job_checkpoints (name, position, updated_at) VALUES (?, ?, now())
+                ON CONFLICT (name) DO UPDATE SET position = EXCLUDED.position, updated_at = now()
+                """, checkpoint, lastId);
+        return new long[]{lastId, repairedRows.size()};
+    }
+
+    private static boolean pause(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
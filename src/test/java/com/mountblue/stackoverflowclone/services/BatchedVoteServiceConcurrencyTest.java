@@ -0,0 +1,8 @@
+package com.mountblue.stackoverflowclone.services;
+
+import org.springframework.test.context.TestPropertySource;
+
+// The same voting storm through VoteBatchWriter's group commit
+@TestPropertySource(properties = "app.votes.ingestion=batched")
+class BatchedVoteServiceConcurrencyTest extends VoteServiceConcurrencyTest {
+}
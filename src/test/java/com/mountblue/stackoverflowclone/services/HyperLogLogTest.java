@@ -0,0 +1,87 @@
+package com.mountblue.stackoverflowclone.services;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Estimates on streams of known cardinality, in the same "u:<id>" form ViewerSketchService hashes. At p = 11
+// the standard error is 1.04 / sqrt(2048) ~ 2.3%; each stream is allowed three standard errors.
+class HyperLogLogTest {
+
+    private static final double STANDARD_ERROR = 1.04 / Math.sqrt(HyperLogLog.REGISTERS);
+
+    @Test
+    void precisionIsEleven() {
+        assertEquals(11, HyperLogLog.PRECISION);
+        assertEquals(2048, new HyperLogLog().toBytes().length);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {100, 1_000, 10_000, 100_000, 1_000_000})
+    void estimateIsWithinThreeStandardErrors(int cardinality) {
+        HyperLogLog sketch = new HyperLogLog();
+        for (int i = 0; i < cardinality; i++) {
+            sketch.add(HyperLogLog.hash("u:" + i));
+        }
+        assertWithin(cardinality, sketch.estimate(), 3 * STANDARD_ERROR);
+    }
+
+    @Test
+    void averageErrorOverManyStreamsIsAboutTheStandardError() {
+        int streams = 50;
+        int cardinality = 20_000;
+        double squaredErrors = 0;
+        for (int s = 0; s < streams; s++) {
+            HyperLogLog sketch = new HyperLogLog();
+            for (int i = 0; i < cardinality; i++) {
+                sketch.add(HyperLogLog.hash("s" + s + ":u:" + i));
+            }
+            double error = (sketch.estimate() - cardinality) / (double) cardinality;
+            squaredErrors += error * error;
+        }
+        double rms = Math.sqrt(squaredErrors / streams);
+        assertTrue(rms < 1.5 * STANDARD_ERROR, "RMS error " + rms);
+    }
+
+    @Test
+    void repeatedViewersAreCountedOnce() {
+        HyperLogLog sketch = new HyperLogLog();
+        for (int repeat = 0; repeat < 5; repeat++) {
+            for (int i = 0; i < 10_000; i++) {
+                boolean grew = sketch.add(HyperLogLog.hash("u:" + i));
+                if (repeat > 0) assertFalse(grew);
+            }
+        }
+        assertWithin(10_000, sketch.estimate(), 3 * STANDARD_ERROR);
+    }
+
+    @Test
+    void mergeIsTheUnionOfOverlappingStreams() {
+        HyperLogLog first = new HyperLogLog();
+        HyperLogLog second = new HyperLogLog();
+        for (int i = 0; i < 60_000; i++) first.add(HyperLogLog.hash("u:" + i));
+        for (int i = 40_000; i < 100_000; i++) second.add(HyperLogLog.hash("u:" + i));
+
+        assertTrue(first.merge(second));
+        assertWithin(100_000, first.estimate(), 3 * STANDARD_ERROR);
+        assertFalse(first.merge(second));
+    }
+
+    @Test
+    void bytesRoundTripAndWrongSizesStartEmpty() {
+        HyperLogLog sketch = new HyperLogLog();
+        for (int i = 0; i < 5_000; i++) sketch.add(HyperLogLog.hash("u:" + i));
+
+        assertEquals(sketch.estimate(), HyperLogLog.fromBytes(sketch.toBytes()).estimate());
+        assertEquals(0, HyperLogLog.fromBytes(null).estimate());
+        assertEquals(0, HyperLogLog.fromBytes(new byte[16]).estimate());
+    }
+
+    private static void assertWithin(long expected, long actual, double relativeError) {
+        double error = Math.abs(actual - expected) / (double) expected;
+        assertTrue(error <= relativeError,
+                "estimate " + actual + " for " + expected + " is off by " + String.format("%.2f%%", error * 100));
+    }
+}
@@ -0,0 +1,150 @@
+package com.mountblue.stackoverflowclone.services;
+
+import com.mountblue.stackoverflowclone.models.*;
+import com.mountblue.stackoverflowclone.repositories.AnswerRepository;
+import com.mountblue.stackoverflowclone.repositories.CommentRepository;
+import com.mountblue.stackoverflowclone.repositories.QuestionRepository;
+import com.mountblue.stackoverflowclone.repositories.TagRepository;
+import com.mountblue.stackoverflowclone.repositories.UserRepository;
+import net.ttddyy.dsproxy.QueryCountHolder;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.context.ActiveProfiles;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+// QuestionPageLoader.load must cost the same number of statements however many answers and comments the
+// question has: question + author + tags, the answer chunk + authors, the comment ids per post, the comment rows
+// + authors, and the related questions (the precomputed lookup, then their rows). Statements are counted on
+// the DataSource, so JdbcTemplate queries are included; the counter is per thread, so background jobs are not.
+@SpringBootTest(properties = {"app.question-page.answers-per-chunk=30", "app.question-page.comments-per-chunk=5"})
+@ActiveProfiles("test")
+class QuestionPageLoaderStatementCountTest {
+
+    private static final int STATEMENTS_PER_PAGE = 6;
+
+    @ServiceConnection
+    static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    static {
+        postgres.start();
+    }
+
+    @TestConfiguration
+    static class CountStatements {
+
+        @Bean
+        static BeanPostProcessor countingDataSource() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource dataSource
+                            ? ProxyDataSourceBuilder.create(dataSource).name("counted").countQuery().build()
+                            : bean;
+                }
+            };
+        }
+    }
+
+    @Autowired
+    QuestionPageLoader questionPageLoader;
+    @Autowired
+    UserRepository userRepository;
+    @Autowired
+    QuestionRepository questionRepository;
+    @Autowired
+    AnswerRepository answerRepository;
+    @Autowired
+    CommentRepository commentRepository;
+    @Autowired
+    TagRepository tagRepository;
+
+    @Test
+    void smallAndLargeQuestionsLoadInTheSameNumberOfStatements() {
+        long small = createQuestion(2, 7);
+        long large = createQuestion(45, 7);
+
+        assertEquals(STATEMENTS_PER_PAGE, statementsToLoad(small));
+        assertEquals(STATEMENTS_PER_PAGE, statementsToLoad(large));
+    }
+
+    @Test
+    void commentsAreOnlyLoadedForTheAnswersShown() {
+        long questionId = createQuestion(31, 2);
+
+        QuestionPageLoader.QuestionPage page = questionPageLoader.load(questionId, 10).orElseThrow();
+        assertEquals(30, page.answers().answers().size());
+        assertNotNull(page.answers().nextCursor());
+        // The 31st answer was read only to know there is a next chunk; its comments come with that chunk
+        assertEquals(30, page.answers().commentsByAnswerId().size());
+        assertEquals(2, page.questionComments().comments().size());
+        assertNull(page.questionComments().nextCursor());
+    }
+
+    private long statementsToLoad(long questionId) {
+        QueryCountHolder.clear();
+        questionPageLoader.load(questionId, 10).orElseThrow();
+        long total = QueryCountHolder.getGrandTotal().getTotal();
+        QueryCountHolder.clear();
+        return total;
+    }
+
+    // A tagged question with the given number of answers, and that many comments on it and on each answer
+    private long createQuestion(int answers, int commentsPerPost) {
+        String run = Long.toString(System.nanoTime());
+        User author = new User();
+        author.setEmail("author-" + run + "@example.com");
+        author.setName("author-" + run);
+        author = userRepository.saveAndFlush(author);
+
+        Tag tag = new Tag();
+        tag.setName("tag-" + run);
+        tag = tagRepository.saveAndFlush(tag);
+
+        Question question = new Question();
+        question.setAuthor(author);
+        question.setTitle("Question " + run);
+        question.setBody("body");
+        question.setTags(new ArrayList<>(List.of(tag)));
+        question = questionRepository.saveAndFlush(question);
+
+        List<Comment> comments = new ArrayList<>();
+        for (int c = 0; c < commentsPerPost; c++) {
+            comments.add(comment(author, question, null, c));
+        }
+        for (int a = 0; a < answers; a++) {
+            Answer answer = new Answer();
+            answer.setQuestion(question);
+            answer.setAuthor(author);
+            answer.setBody("answer " + a);
+            answer = answerRepository.save(answer);
+            for (int c = 0; c < commentsPerPost; c++) {
+                comments.add(comment(author, null, answer, c));
+            }
+        }
+        commentRepository.saveAllAndFlush(comments);
+        return question.getId();
+    }
+
+    private static Comment comment(User author, Question question, Answer answer, int n) {
+        Comment comment = new Comment();
+        comment.setAuthor(author);
+        comment.setQuestion(question);
+        comment.setAnswer(answer);
+        comment.setBody("comment " + n);
+        return comment;
+    }
+}
@@ -0,0 +1,127 @@
+package com.mountblue.stackoverflowclone.services;
+
+import com.mountblue.stackoverflowclone.models.SearchQuery;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// SearchQueryParser against the regex parser it replaced. The queries are shaped like what the search box gets:
+// bare keywords, [tag] brackets and negations, "or" groups, quoted phrases, numeric ranges and created: dates.
+// The regex parser does not know the bracket, range, date and "or" syntax and reads those tokens as tags or
+// keywords, so only the time is comparable there; SearchQueryParserTest checks results. Not part of the test
+// run; start main() from the IDE, or after test-compile with the test classpath.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SearchQueryParserBenchmark {
+
+    @Param({
+            "java",
+            "how to convert string to int",
+            "java spring-boot hibernate",
+            "[python] pandas dataframe merge -[r]",
+            "\"null pointer exception\" java score:5 is:accepted",
+            "[java] or [kotlin] coroutines \"flow vs channel\" answers:0",
+            "[c#] async await deadlock score:10.. views:1000..",
+            "[reactjs] useEffect \"infinite loop\" created:2024-01..2024-06 -[angular] -[vue.js]",
+            "user:42 answers:1..3 [c++] or [c] segmentation fault created:2023",
+            "docker compose postgres connection refused [docker] [postgresql] score:..0 isaccepted:no"
+    })
+    public String query;
+
+    private final SearchQueryParser parser = new SearchQueryParser();
+
+    @Benchmark
+    public SearchQuery singlePass() {
+        return parser.parse(query);
+    }
+
+    @Benchmark
+    public SearchQuery regex() {
+        return RegexParser.parse(query);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(SearchQueryParserBenchmark.class.getSimpleName()).build()).run();
+    }
+
+    // The parser as it was before the single-pass rewrite, as the baseline
+    static final class RegexParser {
+
+        private static final Pattern TOKEN_PATTERN = Pattern.compile("\"([^\"]+)\"|(\\S+)");
+        private static final Pattern TAG_PATTERN = Pattern.compile("[A-Za-z0-9][A-Za-z0-9.+#_-]*");
+        private static final Set<String> NUMERIC_FILTER_KEYS = Set.of("score", "answers", "views");
+        private static final Set<String> STRING_FILTER_KEYS = Set.of("user", "tag", "isaccepted");
+
+        static SearchQuery parse(String raw) {
+            if (raw == null || raw.isBlank()) {
+                return new SearchQuery(List.of(), Map.of(), Map.of(), List.of());
+            }
+            List<String> keywords = new ArrayList<>();
+            Map<String, Integer> numericFilters = new LinkedHashMap<>();
+            Map<String, String> stringFilters = new LinkedHashMap<>();
+            List<String> tags = new ArrayList<>();
+
+            Matcher m = TOKEN_PATTERN.matcher(raw);
+            while (m.find()) {
+                boolean isQuoted = m.group(1) != null;
+                String token = isQuoted ? m.group(1) : m.group(2);
+                if (token == null || token.isBlank()) continue;
+                if (isQuoted) {
+                    keywords.add(token);
+                    continue;
+                }
+                int idx = token.indexOf(':');
+                if (idx > 0 && idx < token.length() - 1) {
+                    String key = token.substring(0, idx).toLowerCase(Locale.ROOT);
+                    String val = token.substring(idx + 1);
+                    if ("is".equals(key) && "accepted".equalsIgnoreCase(val)) {
+                        stringFilters.put("isaccepted", "yes");
+                        continue;
+                    }
+                    if ("accepted".equals(key)) {
+                        stringFilters.put("isaccepted", val);
+                        continue;
+                    }
+                    if (NUMERIC_FILTER_KEYS.contains(key)) {
+                        try {
+                            numericFilters.put(key, Integer.parseInt(val));
+                            continue;
+                        } catch (NumberFormatException ignore) {
+                            // treated as a tag or keyword below
+                        }
+                    }
+                    if (STRING_FILTER_KEYS.contains(key)) {
+                        if ("tag".equals(key)) {
+                            String t = normalizeTag(val);
+                            if (t != null) tags.add(t);
+                        }
+                        stringFilters.put(key, val);
+                        continue;
+                    }
+                }
+                String t = normalizeTag(token);
+                if (t != null) {
+                    tags.add(t);
+                } else {
+                    keywords.add(token);
+                }
+            }
+            return new SearchQuery(keywords, numericFilters, stringFilters, tags);
+        }
+
+        private static String normalizeTag(String s) {
+            String x = s.trim().toLowerCase(Locale.ROOT);
+            return TAG_PATTERN.matcher(x).matches() ? x : null;
+        }
+    }
+}
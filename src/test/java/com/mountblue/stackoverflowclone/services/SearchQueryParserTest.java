@@ -0,0 +1,159 @@
+package com.mountblue.stackoverflowclone.services;
+
+import com.mountblue.stackoverflowclone.models.SearchQuery;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// The first group pins queries the regex parser already understood to the result it gave them (the regex
+// parser itself is kept as SearchQueryParserBenchmark's baseline); the rest covers the syntax added since.
+class SearchQueryParserTest {
+
+    private final SearchQueryParser parser = new SearchQueryParser();
+
+    @Test
+    void blankQueryIsEmpty() {
+        assertTrue(parser.parse(null).isEmpty());
+        assertTrue(parser.parse("   ").isEmpty());
+    }
+
+    @Test
+    void queriesWithoutTheNewSyntaxParseAsTheRegexParserDid() {
+        for (String raw : List.of("java", "Java Spring", "\"null pointer\" java", "score:5 answers:0 views:100",
+                "user:42 is:accepted accepted:no", "tag:Java tag:", "hello! foo:bar score:abc", ":java score:",
+                "\"\" \"unclosed", "a\"b c\"", "c# c++ node.js python-3.x machine_learning", "user java:x score:3")) {
+            SearchQuery expected = SearchQueryParserBenchmark.RegexParser.parse(raw);
+            SearchQuery actual = parser.parse(raw);
+            assertEquals(expected.getKeywords(), actual.getKeywords(), raw);
+            assertEquals(expected.getTags(), actual.getTags(), raw);
+            assertEquals(expected.getNumericFilters(), actual.getNumericFilters(), raw);
+            assertEquals(expected.getStringFilters(), actual.getStringFilters(), raw);
+        }
+    }
+
+    @Test
+    void unquotedWordsAreLowerCasedTags() {
+        SearchQuery query = parser.parse("Java  spring-boot c# c++ node.js python-3.x machine_learning");
+        assertEquals(List.of("java", "spring-boot", "c#", "c++", "node.js", "python-3.x", "machine_learning"),
+                query.getTags());
+        assertEquals(List.of(), query.getKeywords());
+    }
+
+    @Test
+    void quotedPhrasesAreKeywordsEvenWithColons() {
+        SearchQuery query = parser.parse("\"null pointer\" java \"score:5\"");
+        assertEquals(List.of("null pointer", "score:5"), query.getKeywords());
+        assertEquals(List.of("java"), query.getTags());
+        assertEquals(Map.of(), query.getNumericFilters());
+    }
+
+    @Test
+    void wordsThatAreNotTagShapedAreKeywords() {
+        SearchQuery query = parser.parse("hello! foo:bar score:abc \"\" \"unclosed");
+        assertEquals(List.of("hello!", "foo:bar", "score:abc", "\"\"", "\"unclosed"), query.getKeywords());
+        assertEquals(List.of(), query.getTags());
+    }
+
+    @Test
+    void numericAndStringFilters() {
+        SearchQuery query = parser.parse("score:5 answers:0 views:100 user:42 java");
+        assertEquals(Map.of("score", 5, "answers", 0, "views", 100), query.getNumericFilters());
+        assertEquals(Map.of("user", "42"), query.getStringFilters());
+        assertEquals(List.of("java"), query.getTags());
+    }
+
+    @Test
+    void acceptedAliases() {
+        assertEquals(Map.of("isaccepted", "yes"), parser.parse("is:accepted").getStringFilters());
+        assertEquals(Map.of("isaccepted", "no"), parser.parse("accepted:no").getStringFilters());
+        assertEquals(Map.of("isaccepted", "yes"), parser.parse("isaccepted:yes").getStringFilters());
+    }
+
+    @Test
+    void tagFilterIsBothATagAndAStringFilter() {
+        SearchQuery query = parser.parse("tag:Java");
+        assertEquals(List.of("java"), query.getTags());
+        assertEquals(Map.of("tag", "Java"), query.getStringFilters());
+    }
+
+    @Test
+    void colonAtEitherEndIsNotAFilter() {
+        SearchQuery query = parser.parse(":java score:");
+        assertEquals(List.of(":java", "score:"), query.getKeywords());
+        assertEquals(Map.of(), query.getNumericFilters());
+    }
+
+    @Test
+    void colonInALaterTokenDoesNotMakeAnEarlierOneAFilter() {
+        SearchQuery query = parser.parse("user java:x score:3");
+        assertEquals(List.of("user"), query.getTags());
+        assertEquals(List.of("java:x"), query.getKeywords());
+        assertEquals(Map.of("score", 3), query.getNumericFilters());
+        assertEquals(Map.of(), query.getStringFilters());
+    }
+
+    @Test
+    void bracketedAndExcludedTags() {
+        SearchQuery query = parser.parse("[Java] -[php] -[]");
+        assertEquals(List.of("java"), query.getTags());
+        assertEquals(List.of("php"), query.getExcludedTags());
+        assertEquals(List.of("-[]"), query.getKeywords());
+    }
+
+    @Test
+    void orBetweenBracketedTagsMakesAnAnyOfGroup() {
+        SearchQuery query = parser.parse("[java] or [kotlin] or [scala] spring");
+        assertEquals(List.of(List.of("java", "kotlin", "scala")), query.getAnyTagGroups());
+        assertEquals(List.of("spring"), query.getTags());
+    }
+
+    // Changed on purpose: the regex parser read this as three required tags, one of them named "or"
+    @Test
+    void orBetweenBareTagsMakesAnAnyOfGroup() {
+        SearchQuery query = parser.parse("java OR kotlin");
+        assertEquals(List.of(List.of("java", "kotlin")), query.getAnyTagGroups());
+        assertEquals(List.of(), query.getTags());
+    }
+
+    @Test
+    void orWithoutATagOnBothSidesIsAnOrdinaryWord() {
+        assertEquals(List.of("or", "java"), parser.parse("or java").getTags());
+        assertEquals(List.of("java"), parser.parse("java or").getTags());
+        assertEquals(List.of(), parser.parse("java or").getAnyTagGroups());
+
+        SearchQuery afterKeyword = parser.parse("\"null pointer\" or java");
+        assertEquals(List.of("or", "java"), afterKeyword.getTags());
+        assertEquals(List.of(), afterKeyword.getAnyTagGroups());
+    }
+
+    @Test
+    void separateOrGroupsStaySeparate() {
+        SearchQuery query = parser.parse("[a] or [b] score:1 [c] or [d]");
+        assertEquals(List.of(List.of("a", "b"), List.of("c", "d")), query.getAnyTagGroups());
+    }
+
+    @Test
+    void numericRanges() {
+        SearchQuery query = parser.parse("score:5..20 answers:..0 views:100..");
+        assertEquals(new SearchQuery.NumericRange(5, 20), query.getNumericRanges().get("score"));
+        assertEquals(new SearchQuery.NumericRange(null, 0), query.getNumericRanges().get("answers"));
+        assertEquals(new SearchQuery.NumericRange(100, null), query.getNumericRanges().get("views"));
+        assertEquals(List.of("score:..x"), parser.parse("score:..x").getKeywords());
+    }
+
+    @Test
+    void createdRangesCoverWholePeriods() {
+        assertEquals(new SearchQuery.DateRange(LocalDate.of(2025, 1, 1), LocalDate.of(2026, 1, 1)),
+                parser.parse("created:2025").getCreatedRange());
+        assertEquals(new SearchQuery.DateRange(LocalDate.of(2025, 1, 1), LocalDate.of(2025, 7, 1)),
+                parser.parse("created:2025-01..2025-06").getCreatedRange());
+        assertEquals(new SearchQuery.DateRange(LocalDate.of(2025, 1, 15), null),
+                parser.parse("created:2025-01-15..").getCreatedRange());
+        assertNull(parser.parse("created:yesterday").getCreatedRange());
+        assertEquals(List.of("created:yesterday"), parser.parse("created:yesterday").getKeywords());
+    }
+}
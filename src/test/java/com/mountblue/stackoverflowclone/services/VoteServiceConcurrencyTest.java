@@ -0,0 +1,141 @@
+package com.mountblue.stackoverflowclone.services;
+
+import com.mountblue.stackoverflowclone.models.Question;
+import com.mountblue.stackoverflowclone.models.ReputationEventType;
+import com.mountblue.stackoverflowclone.repositories.QuestionRepository;
+import com.mountblue.stackoverflowclone.repositories.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Thousands of voters hitting one question at once, against a real PostgreSQL: the stored votes, the counters
+// on the question and the author's reputation must come out exact. A quarter of the voters click the same
+// arrow twice at the same moment, which races two upserts on one (user, post) row. The run's throughput and
+// latency percentiles are logged, so this class and BatchedVoteServiceConcurrencyTest compare the two modes.
+@SpringBootTest
+@ActiveProfiles("test")
+class VoteServiceConcurrencyTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(VoteServiceConcurrencyTest.class);
+
+    // Started once and shared with the subclasses; Testcontainers removes it when the JVM exits
+    @ServiceConnection
+    static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    static {
+        postgres.start();
+    }
+
+    private static final int VOTERS = 4000;
+    private static final int THREADS = 64;
+
+    @Autowired
+    VoteService voteService;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+    @Autowired
+    UserRepository userRepository;
+    @Autowired
+    QuestionRepository questionRepository;
+
+    @Test
+    void concurrentVotesOnOneQuestionAddUpExactly() throws Exception {
+        long authorId = createUsers("author", 1).get(0);
+        Question question = new Question();
+        question.setAuthor(userRepository.getReferenceById(authorId));
+        question.setTitle("A question everybody votes on");
+        question.setBody("body");
+        long questionId = questionRepository.saveAndFlush(question).getId();
+        List<Long> voters = createUsers("voter", VOTERS);
+
+        // voter i % 4: 0 upvotes, 1 downvotes, 2 upvotes then flips to a downvote, 3 upvotes twice in parallel
+        List<Callable<VoteService.VoteResult>> tasks = new ArrayList<>();
+        for (int i = 0; i < voters.size(); i++) {
+            long voter = voters.get(i);
+            switch (i % 4) {
+                case 0 -> tasks.add(() -> voteService.voteQuestion(voter, questionId, "upvote"));
+                case 1 -> tasks.add(() -> voteService.voteQuestion(voter, questionId, "downvote"));
+                case 2 -> tasks.add(() -> {
+                    voteService.voteQuestion(voter, questionId, "upvote");
+                    return voteService.voteQuestion(voter, questionId, "downvote");
+                });
+                default -> {
+                    tasks.add(() -> voteService.voteQuestion(voter, questionId, "upvote"));
+                    tasks.add(() -> voteService.voteQuestion(voter, questionId, "upvote"));
+                }
+            }
+        }
+        long started = System.nanoTime();
+        runAtOnce(tasks);
+        double seconds = (System.nanoTime() - started) / 1e9;
+        VoteService.Stats stats = voteService.getStats();
+        logger.info("{} ingestion: {} votes in {} s, {} votes/s, p50 {} ms, p99 {} ms, batches {}",
+                stats.ingestion(), tasks.size(), String.format("%.2f", seconds), Math.round(tasks.size() / seconds),
+                stats.p50Millis(), stats.p99Millis(), stats.batches());
+
+        int up = VOTERS / 4;
+        int down = VOTERS / 2;
+        Map<String, Object> counters = jdbcTemplate.queryForMap(
+                "SELECT score, upvote, downvote FROM question WHERE id = ?", questionId);
+        assertEquals(up - down, ((Number) counters.get("score")).intValue());
+        assertEquals(up, ((Number) counters.get("upvote")).intValue());
+        assertEquals(down, ((Number) counters.get("downvote")).intValue());
+
+        assertEquals(up, count("SELECT COUNT(*) FROM votes WHERE post_id = ? AND post_type = 'question' AND vote_value = 1", questionId));
+        assertEquals(down, count("SELECT COUNT(*) FROM votes WHERE post_id = ? AND post_type = 'question' AND vote_value = -1", questionId));
+        assertEquals(up + down, count("SELECT COUNT(*) FROM votes WHERE post_id = ? AND post_type = 'question'", questionId));
+
+        int reputation = up * ReputationEventType.QUESTION_UPVOTED.getPoints()
+                + down * ReputationEventType.QUESTION_DOWNVOTED.getPoints();
+        assertEquals(reputation, count("SELECT reputation FROM users WHERE id = ?", authorId));
+        assertEquals(reputation, count("SELECT COALESCE(SUM(delta), 0) FROM reputation_events WHERE user_id = ?", authorId));
+    }
+
+    private List<Long> createUsers(String prefix, int count) {
+        String run = prefix + "-" + System.nanoTime();
+        return jdbcTemplate.queryForList("""
+                INSERT INTO users (email, name, reputation, profile_view_count, created_at, updated_at)
+                SELECT ? || '-' || g || '@example.com', ? || '-' || g, 0, 0, now(), now()
+                FROM generate_series(1, ?) g
+                RETURNING id
+                """, Long.class, run, run, count);
+    }
+
+    private long count(String sql, long id) {
+        return jdbcTemplate.queryForObject(sql, Long.class, id);
+    }
+
+    // Starts every task at the same moment and rethrows the first failure
+    static void runAtOnce(List<Callable<VoteService.VoteResult>> tasks) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<VoteService.VoteResult>> results = new ArrayList<>();
+            for (Callable<VoteService.VoteResult> task : tasks) {
+                results.add(pool.submit(() -> {
+                    start.await();
+                    return task.call();
+                }));
+            }
+            start.countDown();
+            for (Future<VoteService.VoteResult> result : results) {
+                result.get(2, TimeUnit.MINUTES);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}